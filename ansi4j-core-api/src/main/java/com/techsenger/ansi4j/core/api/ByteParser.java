@@ -0,0 +1,40 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.api;
+
+import java.nio.ByteBuffer;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Byte parser finds and handles functions directly in bytes without decoding them. All indexes (fragment start
+ * and end indexes, current index) are byte indexes relative to the position the buffer had when the parser was
+ * created. Fragment text is decoded only when it is requested.
+ *
+ * @author Pavel Castornii
+ */
+@NotThreadSafe
+public interface ByteParser extends Parser {
+
+    /**
+     * Returns read-only bytes of the fragment without decoding them. The returned buffer shares content with the
+     * parsed buffer.
+     *
+     * @param fragment the fragment returned by this parser.
+     * @return
+     */
+    ByteBuffer getBytes(Fragment fragment);
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.techsenger.ansi4j.core.api;
+
+import com.techsenger.ansi4j.core.api.iso6429.ControlFunction;
+
+/**
+ * Consumer that receives control strings (DCS, OSC, APC, PM, SOS) by parts, so that the parser doesn't keep a whole
+ * control string in memory. When a parser has such consumer, control strings are given only to it and they aren't
+ * returned as fragments. All indexes are indexes in the whole text.
+ *
+ * @author Pavel Castornii
+ */
+public interface ControlStringConsumer {
+
+    /**
+     * Is called when the opening delimiter of a control string is parsed.
+     *
+     * @param function the opening delimiter.
+     * @param startIndex the index of the opening delimiter.
+     */
+    void onStart(ControlFunction function, int startIndex);
+
+    /**
+     * Is called for every part of the control string between the opening delimiter and the terminator. The source is
+     * the buffer of the parser, so it is valid only during this call.
+     *
+     * @param source
+     * @param startIndex the index of the first char of the part in the source.
+     * @param endIndex the index after the last char of the part in the source.
+     */
+    void onPayload(CharSequence source, int startIndex, int endIndex);
+
+    /**
+     * Is called when the terminator of the control string is parsed.
+     *
+     * @param endIndex the index after the terminator.
+     */
+    void onEnd(int endIndex);
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.api;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.concurrent.ThreadSafe;
+import com.techsenger.ansi4j.core.api.function.Function;
+
+/**
+ * Metrics that count the events of parsers. All counters are lock-free, so one instance can be shared by parsers
+ * working in different threads.
+ *
+ * @author Pavel Castornii
+ */
+@ThreadSafe
+public class CountingParserMetrics implements ParserMetrics {
+
+    private final LongAdder parsedCharCount = new LongAdder();
+
+    private final LongAdder textCount = new LongAdder();
+
+    private final LongAdder functionCount = new LongAdder();
+
+    private final Map<Function, LongAdder> functionCountsByFunction = new ConcurrentHashMap<>();
+
+    private final LongAdder delayCount = new LongAdder();
+
+    private final LongAccumulator maxBufferedLength = new LongAccumulator(Math::max, 0);
+
+    private final LongAdder failureCount = new LongAdder();
+
+    /**
+     * Creates metrics with all counters set to zero. One instance can be given to several factories, then it counts
+     * the events of all of them.
+     */
+    public CountingParserMetrics() {
+        //empty
+    }
+
+    @Override
+    public void onCharsParsed(int count) {
+        this.parsedCharCount.add(count);
+    }
+
+    @Override
+    public void onText() {
+        this.textCount.increment();
+    }
+
+    @Override
+    public void onFunction(Function function) {
+        this.functionCount.increment();
+        this.functionCountsByFunction.computeIfAbsent(function, f -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void onParsingDelayed(Function function) {
+        this.delayCount.increment();
+    }
+
+    @Override
+    public void onBufferedText(int length) {
+        this.maxBufferedLength.accumulate(length);
+    }
+
+    @Override
+    public void onFunctionFailure(Function function, FailureReason reason) {
+        this.failureCount.increment();
+    }
+
+    public long getParsedCharCount() {
+        return this.parsedCharCount.sum();
+    }
+
+    public long getTextCount() {
+        return this.textCount.sum();
+    }
+
+    public long getFunctionCount() {
+        return this.functionCount.sum();
+    }
+
+    public long getFunctionCount(Function function) {
+        var counter = this.functionCountsByFunction.get(function);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Returns a snapshot of function counts.
+     *
+     * @return
+     */
+    public Map<Function, Long> getFunctionCounts() {
+        var counts = new HashMap<Function, Long>();
+        this.functionCountsByFunction.forEach((f, c) -> counts.put(f, c.sum()));
+        return counts;
+    }
+
+    public long getDelayCount() {
+        return this.delayCount.sum();
+    }
+
+    /**
+     * Returns the max number of chars a parser has kept in its buffer.
+     *
+     * @return
+     */
+    public long getMaxBufferedLength() {
+        return this.maxBufferedLength.get();
+    }
+
+    public long getFailureCount() {
+        return this.failureCount.sum();
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.api;
+
+import javax.annotation.concurrent.ThreadSafe;
+import com.techsenger.ansi4j.core.api.function.Function;
+
+/**
+ * Listener that is notified about functions that couldn't be parsed and about errors of parsers. Malformed or hostile
+ * input can have a failure in every function, so the listener must be cheap. By default failures are logged, but not
+ * more often than several times per minute.
+ *
+ * @author Pavel Castornii
+ */
+@ThreadSafe
+public interface FailureListener {
+
+    /**
+     * Listener that ignores all failures.
+     */
+    FailureListener SILENT = new FailureListener() {
+
+        @Override
+        public void onFunctionFailure(Function function, int index, FailureReason reason) {
+            //ignored
+        }
+
+        @Override
+        public void onParserError(Exception ex) {
+            //ignored
+        }
+    };
+
+    /**
+     * Is called when the found function couldn't be parsed. The text of such function becomes a part of a text
+     * fragment.
+     *
+     * @param function the function that was found.
+     * @param index index of the function in the whole text.
+     * @param reason
+     */
+    void onFunctionFailure(Function function, int index, FailureReason reason);
+
+    /**
+     * Is called when the parser stops because of an error, for example, an error of the stream.
+     *
+     * @param ex
+     */
+    void onParserError(Exception ex);
+}
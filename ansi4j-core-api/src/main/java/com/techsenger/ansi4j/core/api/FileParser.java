@@ -0,0 +1,40 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.api;
+
+import java.io.Closeable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * File parser maps the file into memory by windows and finds functions directly in the mapped bytes. As a file
+ * can be longer than {@link Integer#MAX_VALUE}, fragment indexes and current index are relative to the window
+ * the fragment was found in, while {@link Fragment#getStartPosition()}, {@link Fragment#getEndPosition()} and
+ * {@link #getCurrentPosition()} are byte positions in the file. After using parser must be closed.
+ *
+ * @author Pavel Castornii
+ */
+@NotThreadSafe
+public interface FileParser extends Parser, Closeable {
+
+    /**
+     * Returns current byte position in the file. Everything before position has been parsed, everything after
+     * position hasn't been parsed.
+     *
+     * @return
+     */
+    long getCurrentPosition();
+}
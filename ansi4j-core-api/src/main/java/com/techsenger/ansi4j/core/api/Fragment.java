@@ -33,23 +33,57 @@ public interface Fragment {
     FragmentType getType();
 
     /**
-     * Text on which base this fragment was created (this is a piece of the whole text).
+     * Text on which base this fragment was created (this is a piece of the whole text). Until this method is called
+     * for the first time, the fragment keeps a reference to the parsed text, so a fragment of a string parser keeps
+     * the whole string alive and a fragment of {@link FileParser} keeps its mapped window. After the call the fragment
+     * keeps only its own text. Fragments of stream and push parsers are returned with the created text.
      *
      * @return
      */
     String getText();
 
     /**
-     * Start index of the fragment text in the whole text, inclusive.
+     * Returns the fragment text as a read-only view over the parsed text without copying it. If the parsed text is
+     * mutable (for example, {@code StringBuilder}), it must not be modified while the view is used. The view keeps
+     * the parsed text alive, see {@link #getText()}.
+     *
+     * @return
+     */
+    CharSequence getTextView();
+
+    /**
+     * Start index of the fragment text in the whole text, inclusive. For {@link FileParser} it is the index in the
+     * mapped window the fragment was found in, not in the file, so {@link #getStartPosition()} must be used to find
+     * the fragment in the file.
      *
      * @return
      */
     int getStartIndex();
 
     /**
-     * End index of the fragment text in the whole text, exclusive.
+     * End index of the fragment text in the whole text, exclusive. For {@link FileParser} it is the index in the
+     * mapped window, see {@link #getStartIndex()} and {@link #getEndPosition()}.
      *
      * @return
      */
     int getEndIndex();
+
+    /**
+     * Start position of the fragment text in the whole input, inclusive. It is equal to start index for all
+     * parsers except {@link FileParser} which can parse inputs longer than {@link Integer#MAX_VALUE}.
+     *
+     * @return
+     */
+    default long getStartPosition() {
+        return getStartIndex();
+    }
+
+    /**
+     * End position of the fragment text in the whole input, exclusive. See {@link #getStartPosition()}.
+     *
+     * @return
+     */
+    default long getEndPosition() {
+        return getEndIndex();
+    }
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.api;
+
+import com.techsenger.ansi4j.core.api.function.Function;
+import com.techsenger.ansi4j.core.api.function.FunctionArguments;
+
+/**
+ * Visitor that receives the fragments of a text without creating fragment objects. All indexes are indexes in the
+ * source. The same visitor can be used for any number of texts.
+ *
+ * @author Pavel Castornii
+ */
+public interface FragmentVisitor {
+
+    /**
+     * Is called for the text between functions.
+     *
+     * @param source
+     * @param startIndex
+     * @param endIndex
+     */
+    void onText(CharSequence source, int startIndex, int endIndex);
+
+    /**
+     * Is called for a function.
+     *
+     * @param function
+     * @param source
+     * @param startIndex
+     * @param endIndex
+     * @param arguments the arguments of the function. This object is reused, so it is valid only during this call.
+     */
+    void onFunction(Function function, CharSequence source, int startIndex, int endIndex,
+            FunctionArguments arguments);
+}
@@ -31,5 +31,11 @@ public enum FunctionFailureReason implements FailureReason {
      * This reason happens when text for parsing is read from stream. Using this reason parser understands
      * if it can parse function or parsing must be repeated when whole function is read from the stream.
      */
-    NO_END_OF_FUNCTION
+    NO_END_OF_FUNCTION,
+
+    /**
+     * Function is longer or has more arguments than the limits of the parser factory allow. Parser doesn't try to
+     * parse the text of such function again and continues after the part it has already scanned.
+     */
+    LIMIT_EXCEEDED
 }
@@ -33,5 +33,5 @@ public interface FunctionFinder extends Initializable {
      * @param text
      * @return finder result or null if function isn't found.
      */
-    Optional<FunctionFinderResult> find(int startIndex, String text);
+    Optional<FunctionFinderResult> find(int startIndex, CharSequence text);
 }
@@ -41,4 +41,50 @@ public interface FunctionFragment extends Fragment {
      * @return
      */
     List<FunctionArgument> getArguments();
+
+    /**
+     * Returns the number of arguments. Arguments can be read by index without creating the argument list and
+     * without boxing integer values.
+     *
+     * @return
+     */
+    default int getArgumentCount() {
+        var arguments = getArguments();
+        return arguments == null ? 0 : arguments.size();
+    }
+
+    /**
+     * Checks if the argument value is default (escape code didn't contain explicit value).
+     *
+     * @param index
+     * @return
+     */
+    default boolean isDefaultArgument(int index) {
+        return getArguments().get(index).isDefault();
+    }
+
+    /**
+     * Checks if the argument value is an integer, so it can be read with {@link #getIntArgument(int)}.
+     *
+     * @param index
+     * @return
+     */
+    default boolean isIntArgument(int index) {
+        return getArguments().get(index).getValue() instanceof Integer;
+    }
+
+    /**
+     * Returns the integer value of the argument.
+     *
+     * @param index
+     * @return
+     * @throws IllegalStateException if the value isn't an integer.
+     */
+    default int getIntArgument(int index) {
+        var value = getArguments().get(index).getValue();
+        if (!(value instanceof Integer)) {
+            throw new IllegalStateException("Argument " + index + " is not an integer");
+        }
+        return (Integer) value;
+    }
 }
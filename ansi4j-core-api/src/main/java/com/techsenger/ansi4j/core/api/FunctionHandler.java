@@ -37,13 +37,14 @@ public interface FunctionHandler extends FragmentHandler {
     /**
      * Parses function text.
      *
-     * @param text is a piece of the whole text and starts with the function (first character is the beginning of the
-     * function)
+     * @param text is the text being parsed. It can contain any characters before and after the function. The text
+     * is never copied by the parser, so the handler should read it in place using startIndex.
+     * @param startIndex index of the first character of the function in the text.
      * @param function function that must be parsed
-     * @param currentIndex index in the whole text (is equal to parsed text length). This parameter is required for
-     * calculating start and end index as they are relative to the whole text.
+     * @param currentIndex index of the function in the whole text. This parameter is required for calculating start
+     * and end index as they are relative to the whole text.
      *
      * @return fragment parser result
      */
-    FunctionHandlerResult handle(String text, ControlFunction function, int currentIndex);
+    FunctionHandlerResult handle(CharSequence text, int startIndex, ControlFunction function, int currentIndex);
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.api;
+
+/**
+ * What parsers do with the functions that are not in the set of interesting functions of the factory.
+ *
+ * @author Pavel Castornii
+ */
+public enum IgnoredFunctionAction {
+
+    /**
+     * Function is skipped, no fragment is returned for it.
+     */
+    DROP,
+
+    /**
+     * Function becomes a part of the text fragment.
+     */
+    TEXT
+}
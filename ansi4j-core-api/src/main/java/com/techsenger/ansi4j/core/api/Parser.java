@@ -16,6 +16,11 @@
 
 package com.techsenger.ansi4j.core.api;
 
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import javax.annotation.concurrent.NotThreadSafe;
 
 /**
@@ -40,4 +45,28 @@ public interface Parser {
      * @return
      */
     int getCurrentIndex();
+
+    /**
+     * Returns a sequential stream of the fragments that haven't been parsed yet. The stream uses this parser, so the
+     * parser mustn't be used while the stream is used. The stream can be made parallel, but only the stream of
+     * {@link StringParser} is really split.
+     *
+     * @return
+     */
+    default Stream<Fragment> stream() {
+        var spliterator = new Spliterators.AbstractSpliterator<Fragment>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Fragment> action) {
+                var fragment = parse();
+                if (fragment == null) {
+                    return false;
+                }
+                action.accept(fragment);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
 }
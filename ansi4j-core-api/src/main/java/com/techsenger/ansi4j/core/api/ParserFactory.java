@@ -16,15 +16,28 @@
 
 package com.techsenger.ansi4j.core.api;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 import javax.annotation.concurrent.ThreadSafe;
+import com.techsenger.ansi4j.core.api.function.Function;
 import com.techsenger.ansi4j.core.api.function.FunctionType;
 import com.techsenger.ansi4j.core.api.iso6429.ControlFunctionType;
 import com.techsenger.ansi4j.core.api.spi.ParserFactoryConfig;
 import com.techsenger.ansi4j.core.api.spi.ParserFactoryService;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.ServiceLoader;
 
 /**
@@ -98,6 +111,109 @@ public interface ParserFactory {
             return this;
         }
 
+        /**
+         * Sets the action that stream parsers take on malformed input and unmappable characters when decoding bytes.
+         * By default {@link CodingErrorAction#REPLACE} is used. If {@link CodingErrorAction#REPORT} is set, the
+         * parser stops on the first coding error.
+         *
+         * @param action
+         * @return
+         */
+        public Builder codingErrorAction(CodingErrorAction action) {
+            this.config.setCodingErrorAction(action);
+            return this;
+        }
+
+        /**
+         * Sets the functions the consumer of the fragments is interested in. Other functions are recognized only to
+         * find their end, no fragments are created for them, and they are dropped or become text according to
+         * {@link #ignoredFunctionAction(IgnoredFunctionAction)}. For control sequences the resolved function is
+         * used, for example, {@link com.techsenger.ansi4j.core.api.iso6429.ControlSequenceFunction#SGR}. By default
+         * all functions are interesting.
+         *
+         * @param functions
+         * @return
+         */
+        public Builder interestedIn(Function... functions) {
+            this.config.setInterestingFunctions(new HashSet<>(Arrays.asList(functions)));
+            return this;
+        }
+
+        /**
+         * Sets what parsers do with the functions that are not interesting. By default they are dropped.
+         *
+         * @param action
+         * @return
+         */
+        public Builder ignoredFunctionAction(IgnoredFunctionAction action) {
+            this.config.setIgnoredFunctionAction(action);
+            return this;
+        }
+
+        /**
+         * Sets the listener that is notified about failures. By default failures are logged, but not more often than
+         * several times per minute. Use {@link FailureListener#SILENT} to ignore failures.
+         *
+         * @param listener
+         * @return
+         */
+        public Builder failureListener(FailureListener listener) {
+            this.config.setFailureListener(listener);
+            return this;
+        }
+
+        /**
+         * Sets the metrics that receive the events of all parsers of the factory. By default there are no metrics.
+         *
+         * @param metrics
+         * @return
+         */
+        public Builder metrics(ParserMetrics metrics) {
+            this.config.setMetrics(metrics);
+            return this;
+        }
+
+        /**
+         * Sets the max length of a function in chars. A longer function isn't parsed, its text becomes a part of a
+         * text fragment and the failure reason is {@link FunctionFailureReason#LIMIT_EXCEEDED}. If a parser that
+         * receives text by portions hasn't found the end of a function within this length, it stops waiting for
+         * it: the received chars become text and next chars are text up to the end of the function, so the result
+         * is the same. If the input ends before the end of a control string or a control sequence, the rest of the
+         * input is text. By default there is no limit.
+         *
+         * @param length
+         * @return
+         */
+        public Builder maxFunctionLength(int length) {
+            this.config.setMaxFunctionLength(length);
+            return this;
+        }
+
+        /**
+         * Sets the max number of arguments of a function. A function with more arguments isn't parsed in the same way
+         * as a too long function. By default there is no limit.
+         *
+         * @param count
+         * @return
+         */
+        public Builder maxArgumentCount(int count) {
+            this.config.setMaxArgumentCount(count);
+            return this;
+        }
+
+        /**
+         * Sets the max number of chars that stream and push parsers keep while waiting for the end of a function.
+         * When it is reached, the parser stops waiting for the end of the function as with
+         * {@link #maxFunctionLength(int)}. By default there is no limit.
+         *
+         * @param size
+         * @return
+         */
+        public Builder maxBufferSize(int size) {
+            this.config.setMaxBufferSize(size);
+            return this;
+        }
+
         public ParserFactory build() {
             this.config.validate();
             var factory = ServiceLoader
@@ -112,6 +228,81 @@ public interface ParserFactory {
      */
     Environment getEnvironment();
 
+    /**
+     * Returns the action stream parsers take on malformed input and unmappable characters.
+     *
+     * @return
+     */
+    CodingErrorAction getCodingErrorAction();
+
+    /**
+     * Returns the functions the consumer of the fragments is interested in or null if all functions are interesting.
+     *
+     * @return
+     */
+    Set<Function> getInterestingFunctions();
+
+    /**
+     * Checks if the function is interesting. Parsers call this method for every parsed function.
+     *
+     * @param function
+     * @return
+     */
+    default boolean isInterestedIn(Function function) {
+        var functions = this.getInterestingFunctions();
+        return functions == null || functions.contains(function);
+    }
+
+    /**
+     * Returns what parsers do with the functions that are not interesting.
+     *
+     * @return
+     */
+    IgnoredFunctionAction getIgnoredFunctionAction();
+
+    /**
+     * Returns the listener that parsers notify about failures. The failures given to this listener are counted.
+     *
+     * @return
+     */
+    FailureListener getFailureListener();
+
+    /**
+     * Returns the number of functions that parsers of this factory couldn't parse because of the given reason.
+     *
+     * @param reason
+     * @return
+     */
+    long getFailureCount(FailureReason reason);
+
+    /**
+     * Returns the metrics of the factory or null if there are no metrics.
+     *
+     * @return
+     */
+    ParserMetrics getMetrics();
+
+    /**
+     * Returns the max length of a function in chars.
+     *
+     * @return
+     */
+    int getMaxFunctionLength();
+
+    /**
+     * Returns the max number of arguments of a function.
+     *
+     * @return
+     */
+    int getMaxArgumentCount();
+
+    /**
+     * Returns the max number of chars that stream and push parsers keep while waiting for the end of a function.
+     *
+     * @return
+     */
+    int getMaxBufferSize();
+
     /**
      * Returns thread-safe type of finder.
      *
@@ -126,6 +317,17 @@ public interface ParserFactory {
      */
     Map<FunctionType, FunctionHandler> getFunctionHandlersByType();
 
+    /**
+     * Returns thread-safe function handler of the given type or null if there is no such handler. Parsers call this
+     * method for every found function.
+     *
+     * @param type
+     * @return
+     */
+    default FunctionHandler getFunctionHandler(FunctionType type) {
+        return this.getFunctionHandlersByType().get(type);
+    }
+
     /**
      * Returns thread-safe text handler.
      *
@@ -134,19 +336,166 @@ public interface ParserFactory {
     TextHandler getTextHandler();
 
     /**
-     * Creates NOT thread-safe string parser that will use thread-safe components.
+     * Creates NOT thread-safe string parser that will use thread-safe components. The text is read in place, so
+     * any {@link CharSequence} ({@code String}, {@code StringBuilder}, {@code CharBuffer} etc) can be parsed without
+     * converting it to a string. If the text is mutable, it must not be modified while the parser and its fragments
+     * are used.
      *
      * @param text
      * @return
      */
-    StringParser createParser(String text);
+    StringParser createParser(CharSequence text);
 
     /**
-     * Creates NOT thread-safe stream parser that will use thread-safe components.
+     * Parses the text and gives its fragments to the visitor. The fragments are the same as the fragments of
+     * {@link StringParser}, but fragment objects are not created, so this is the fastest way to parse the text if
+     * the fragments aren't kept. The text must not be modified while it is parsed.
+     *
+     * @param text
+     * @param visitor
+     */
+    void visit(CharSequence text, FragmentVisitor visitor);
+
+    /**
+     * Removes functions from the text and appends the remaining text to the output. The result is the text of the
+     * text fragments of {@link StringParser}, but no fragments are created, and runs of text are appended with
+     * {@link Appendable#append(CharSequence, int, int)}. The text must not be modified while it is stripped.
+     *
+     * @param text
+     * @param output
+     * @throws IOException if the output throws it.
+     */
+    void strip(CharSequence text, Appendable output) throws IOException;
+
+    /**
+     * Decodes the stream with the given encoding, removes functions and writes the remaining text to the writer.
+     * The result is the same as the result of {@link #strip(CharSequence, Appendable)} for the whole decoded text.
+     * The method returns when the end of the stream is reached, the stream and the writer are not closed.
      *
      * @param stream
      * @param encoding
+     * @param writer
+     * @throws IOException
+     */
+    void strip(InputStream stream, Charset encoding, Writer writer) throws IOException;
+
+    /**
+     * Returns the number of terminal columns the text without functions takes. East Asian wide and fullwidth
+     * characters take two columns, control characters, combining marks and other zero-width characters take no
+     * columns. No objects are created while the text is measured.
+     *
+     * @param text
+     * @return
+     */
+    int visibleWidth(CharSequence text);
+
+    /**
+     * Returns the number of terminal columns the text takes when it is printed from the first column. Unlike
+     * {@link #visibleWidth(CharSequence)}, C0 controls move the cursor: HT moves it to the next tab stop, BS moves
+     * it one column back, CR and LF move it to the first column. If the text has several lines, the width of the
+     * widest line is returned.
+     *
+     * @param text
+     * @param tabSize distance between tab stops, for example, 8.
+     * @return
+     */
+    int visibleLength(CharSequence text, int tabSize);
+
+    /**
+     * Parses the text in parallel and returns all fragments. The text is split into chunks of about chunkSize chars
+     * that are parsed in the pool, the result is the same as the result of {@link StringParser}. The text must not
+     * be modified while it is parsed.
+     *
+     * @param text
+     * @param pool
+     * @param chunkSize
+     * @return
+     */
+    List<Fragment> parseParallel(CharSequence text, ForkJoinPool pool, int chunkSize);
+
+    /**
+     * Creates NOT thread-safe byte parser that will use thread-safe components. Bytes from the position to the limit
+     * of the buffer are parsed, the buffer position isn't changed. Supported encodings are UTF-8 (only in
+     * {@link Environment#_7_BIT}, because in UTF-8 bytes 0x80-0x9F are not C1 functions), ISO-8859-1 and US-ASCII.
+     *
+     * @param buffer
+     * @param encoding
+     * @return
+     */
+    ByteParser createParser(ByteBuffer buffer, Charset encoding);
+
+    /**
+     * Creates NOT thread-safe file parser that will use thread-safe components. The file is mapped into memory by
+     * windows, so it can be longer than {@link Integer#MAX_VALUE}. Supported encodings are the same as for
+     * {@link #createParser(ByteBuffer, Charset)}.
+     *
+     * @param file
+     * @param encoding
+     * @param windowSize the size of the mapped window in bytes. The window grows only if a function is longer.
+     * @return
+     * @throws IOException if the file can't be opened.
+     */
+    FileParser createParser(Path file, Charset encoding, int windowSize) throws IOException;
+
+    /**
+     * Creates NOT thread-safe push parser that will use thread-safe components. Every parsed fragment is given to the
+     * consumer during the call of a feed method.
+     *
+     * @param consumer
+     * @param encoding the charset the fed bytes are decoded with.
+     * @param bufferSize the initial size of the char buffer.
+     * @return
+     */
+    PushParser createParser(Consumer<Fragment> consumer, Charset encoding, int bufferSize);
+
+    /**
+     * Creates NOT thread-safe push parser that gives control strings to the control string consumer by parts, so the
+     * size of the char buffer doesn't depend on the length of control strings.
+     *
+     * @param consumer
+     * @param encoding the charset the fed bytes are decoded with.
+     * @param bufferSize the initial size of the char buffer.
+     * @param controlStringConsumer
+     * @return
+     */
+    PushParser createParser(Consumer<Fragment> consumer, Charset encoding, int bufferSize,
+            ControlStringConsumer controlStringConsumer);
+
+    /**
+     * Creates NOT thread-safe stream parser that will use thread-safe components.
+     *
+     * @param stream
+     * @param encoding the charset the stream bytes are decoded with.
+     * @param bufferSize the size of the byte and char buffers; the char buffer grows only if a function is longer.
      * @return
      */
     StreamParser createParser(InputStream stream, Charset encoding, int bufferSize);
+
+    /**
+     * Creates NOT thread-safe stream parser that gives control strings to the control string consumer by parts, so
+     * the size of the char buffer doesn't depend on the length of control strings.
+     *
+     * @param stream
+     * @param encoding the charset the stream bytes are decoded with.
+     * @param bufferSize the size of the byte and char buffers.
+     * @param controlStringConsumer
+     * @return
+     */
+    StreamParser createParser(InputStream stream, Charset encoding, int bufferSize,
+            ControlStringConsumer controlStringConsumer);
+
+    /**
+     * Creates a publisher of the fragments of the parser. The publisher can have only one subscriber. Fragments are
+     * parsed only when they are requested and are delivered by the tasks of the executor, every task delivers not
+     * more than batchSize fragments. The parser mustn't be used by other code while the subscription is active.
+     * If the parser stops because of an error (for example, an {@code IOException} of the stream), the error is given
+     * to the failure listener and to {@link Flow.Subscriber#onError(Throwable)}, so the subscriber is completed
+     * normally only at the end of the input.
+     *
+     * @param parser
+     * @param executor
+     * @param batchSize
+     * @return
+     */
+    Flow.Publisher<Fragment> createPublisher(Parser parser, Executor executor, int batchSize);
 }
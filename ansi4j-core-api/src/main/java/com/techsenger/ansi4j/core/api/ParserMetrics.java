@@ -0,0 +1,72 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.api;
+
+import javax.annotation.concurrent.ThreadSafe;
+import com.techsenger.ansi4j.core.api.function.Function;
+
+/**
+ * Listener that receives the events of parsers for metrics, for example, to find out how many functions of every type
+ * the text has. It is called by all parsers of the factory from the threads they are used in, so it must be thread
+ * safe and cheap. When the factory has no metrics, parsers don't pay for them. See {@link CountingParserMetrics}.
+ *
+ * @author Pavel Castornii
+ */
+@ThreadSafe
+public interface ParserMetrics {
+
+    /**
+     * Is called when the parser has parsed the next chars of the text (text, functions, streamed control strings).
+     *
+     * @param count number of chars.
+     */
+    void onCharsParsed(int count);
+
+    /**
+     * Is called when a text fragment is created or a text is visited.
+     */
+    void onText();
+
+    /**
+     * Is called when a function fragment is created or a function is visited.
+     *
+     * @param function
+     */
+    void onFunction(Function function);
+
+    /**
+     * Is called when the end of the function hasn't been received yet, so the parser waits for next chars.
+     *
+     * @param function
+     */
+    void onParsingDelayed(Function function);
+
+    /**
+     * Is called by the parsers that receive text by portions, when a new portion is received.
+     *
+     * @param length number of chars the parser keeps, that is unparsed chars and the new portion.
+     */
+    void onBufferedText(int length);
+
+    /**
+     * Is called when the function couldn't be parsed.
+     *
+     * @param function
+     * @param reason
+     */
+    void onFunctionFailure(Function function, FailureReason reason);
+}
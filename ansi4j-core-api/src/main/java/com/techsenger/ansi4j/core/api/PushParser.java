@@ -0,0 +1,67 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.api;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Push parser receives text by chunks and gives every parsed fragment to the consumer during the call of feed
+ * method, so it never blocks. A function whose end hasn't been received yet is kept by the parser until the next
+ * chunk. One parser is created for one input.
+ *
+ * @author Pavel Castornii
+ */
+@NotThreadSafe
+public interface PushParser {
+
+    /**
+     * Parses the chars.
+     *
+     * @param chars
+     * @param offset
+     * @param length
+     */
+    void feed(char[] chars, int offset, int length);
+
+    /**
+     * Decodes and parses bytes from the position to the limit of the buffer. The buffer position is set to the
+     * limit, an incomplete character at the end of the buffer is kept by the parser.
+     *
+     * @param bytes
+     * @throws CharacterCodingException if the parser factory uses REPORT coding error action and bytes are
+     * malformed or unmappable.
+     */
+    void feed(ByteBuffer bytes) throws CharacterCodingException;
+
+    /**
+     * Notifies the parser that there will be no more chunks. All kept text is parsed, functions without end are
+     * parsed as text. After this method is called the parser can't be fed.
+     *
+     * @throws CharacterCodingException if the parser factory uses REPORT coding error action and an incomplete
+     * character is kept by the parser.
+     */
+    void endOfInput() throws CharacterCodingException;
+
+    /**
+     * Returns current index in text. Everything before index has been given to the consumer.
+     *
+     * @return
+     */
+    int getCurrentIndex();
+}
@@ -16,14 +16,37 @@
 
 package com.techsenger.ansi4j.core.api;
 
+import java.util.stream.Stream;
 import javax.annotation.concurrent.NotThreadSafe;
 
 /**
- * String parser is very light and can be created for every text line if necessary.
+ * String parser is very light and can be created for every text line if necessary. It parses any
+ * {@link CharSequence}, not only strings. In hot loops one parser can be reused for all lines, see
+ * {@link #reset(CharSequence)}.
  *
  * @author Pavel Castornii
  */
 @NotThreadSafe
 public interface StringParser extends Parser {
 
+    /**
+     * {@inheritDoc}
+     *
+     * The stream doesn't change the state of this parser. Its size is estimated by the length of the remaining text.
+     * When the stream is parallel, the text is split at the starts of the functions that can't be inside other
+     * functions, so the parallel stream has the same fragments as the sequential one. The text must not be modified
+     * while the stream is used.
+     *
+     * @return
+     */
+    @Override
+    Stream<Fragment> stream();
+
+    /**
+     * Makes the parser parse the new text from the beginning, as if it were a new parser created for this text.
+     * The fragments returned before are not changed. The current index starts from zero again.
+     *
+     * @param text
+     */
+    void reset(CharSequence text);
 }
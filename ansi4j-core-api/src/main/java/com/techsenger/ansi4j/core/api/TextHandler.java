@@ -29,11 +29,14 @@ public interface TextHandler extends FragmentHandler {
     /**
      * Parses text (string that doesn't contain functions).
      *
-     * @param text is a piece of the whole text and doesn't have any functions.
-     * @param currentIndex index in the whole text (is equal to parsed text length). This parameter is required for
-     * calculating start and end index as they are relative to the whole text.
+     * @param text is the text being parsed. Only the characters between startIndex and endIndex must be handled,
+     * they don't have any functions.
+     * @param startIndex index of the first character of the piece in the text, inclusive.
+     * @param endIndex index of the last character of the piece in the text, exclusive.
+     * @param currentIndex index of the piece in the whole text. This parameter is required for calculating start
+     * and end index as they are relative to the whole text.
      *
      * @return
      */
-    TextHandlerResult handle(String text, int currentIndex);
+    TextHandlerResult handle(CharSequence text, int startIndex, int endIndex, int currentIndex);
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.api.function;
+
+/**
+ * Arguments of a function that can be read without boxing.
+ *
+ * @author Pavel Castornii
+ */
+public interface FunctionArguments {
+
+    /**
+     * Returns the number of arguments.
+     *
+     * @return
+     */
+    int getCount();
+
+    /**
+     * Checks if the argument value is default (escape code didn't contain explicit value).
+     *
+     * @param index
+     * @return
+     */
+    boolean isDefault(int index);
+
+    /**
+     * Checks if the argument value is an integer, so it can be read with {@link #getInt(int)}.
+     *
+     * @param index
+     * @return
+     */
+    boolean isInt(int index);
+
+    /**
+     * Returns the integer value of the argument.
+     *
+     * @param index
+     * @return
+     * @throws IllegalStateException if the value isn't an integer.
+     */
+    int getInt(int index);
+
+    /**
+     * Returns the value of the argument. Integer values are boxed, text values are created by this call, so
+     * {@link #getInt(int)} should be used when it is possible.
+     *
+     * @param index
+     * @return
+     */
+    Object getValue(int index);
+}
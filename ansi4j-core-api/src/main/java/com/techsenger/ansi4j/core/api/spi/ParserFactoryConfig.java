@@ -17,11 +17,17 @@
 package com.techsenger.ansi4j.core.api.spi;
 
 import com.techsenger.ansi4j.core.api.Environment;
+import com.techsenger.ansi4j.core.api.FailureListener;
 import com.techsenger.ansi4j.core.api.FunctionFinder;
 import com.techsenger.ansi4j.core.api.FunctionHandler;
+import com.techsenger.ansi4j.core.api.IgnoredFunctionAction;
+import com.techsenger.ansi4j.core.api.ParserMetrics;
 import com.techsenger.ansi4j.core.api.TextHandler;
+import com.techsenger.ansi4j.core.api.function.Function;
 import com.techsenger.ansi4j.core.api.iso6429.ControlFunctionType;
+import java.nio.charset.CodingErrorAction;
 import java.util.List;
+import java.util.Set;
 
 /**
  *
@@ -39,6 +45,22 @@ public class ParserFactoryConfig {
 
     private TextHandler textHandler;
 
+    private CodingErrorAction codingErrorAction = CodingErrorAction.REPLACE;
+
+    private int maxFunctionLength = Integer.MAX_VALUE;
+
+    private int maxArgumentCount = Integer.MAX_VALUE;
+
+    private int maxBufferSize = Integer.MAX_VALUE;
+
+    private Set<Function> interestingFunctions;
+
+    private IgnoredFunctionAction ignoredFunctionAction = IgnoredFunctionAction.DROP;
+
+    private FailureListener failureListener;
+
+    private ParserMetrics metrics;
+
     public Environment getEnvironment() {
         return environment;
     }
@@ -79,6 +101,70 @@ public class ParserFactoryConfig {
         this.textHandler = textHandler;
     }
 
+    public CodingErrorAction getCodingErrorAction() {
+        return codingErrorAction;
+    }
+
+    public void setCodingErrorAction(CodingErrorAction codingErrorAction) {
+        this.codingErrorAction = codingErrorAction;
+    }
+
+    public int getMaxFunctionLength() {
+        return maxFunctionLength;
+    }
+
+    public void setMaxFunctionLength(int maxFunctionLength) {
+        this.maxFunctionLength = maxFunctionLength;
+    }
+
+    public int getMaxArgumentCount() {
+        return maxArgumentCount;
+    }
+
+    public void setMaxArgumentCount(int maxArgumentCount) {
+        this.maxArgumentCount = maxArgumentCount;
+    }
+
+    public int getMaxBufferSize() {
+        return maxBufferSize;
+    }
+
+    public void setMaxBufferSize(int maxBufferSize) {
+        this.maxBufferSize = maxBufferSize;
+    }
+
+    public Set<Function> getInterestingFunctions() {
+        return interestingFunctions;
+    }
+
+    public void setInterestingFunctions(Set<Function> interestingFunctions) {
+        this.interestingFunctions = interestingFunctions;
+    }
+
+    public IgnoredFunctionAction getIgnoredFunctionAction() {
+        return ignoredFunctionAction;
+    }
+
+    public void setIgnoredFunctionAction(IgnoredFunctionAction ignoredFunctionAction) {
+        this.ignoredFunctionAction = ignoredFunctionAction;
+    }
+
+    public FailureListener getFailureListener() {
+        return failureListener;
+    }
+
+    public void setFailureListener(FailureListener failureListener) {
+        this.failureListener = failureListener;
+    }
+
+    public ParserMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(ParserMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     public void validate() {
         if (environment == null) {
             throw new IllegalStateException("No environment");
@@ -88,5 +174,18 @@ public class ParserFactoryConfig {
                 && (this.functionHandlers == null || this.functionHandlers.isEmpty())) {
             throw new IllegalStateException("No function types, no function handlers");
         }
+
+        if (this.codingErrorAction == null) {
+            throw new IllegalStateException("No coding error action");
+        }
+
+        if (this.maxFunctionLength <= 0 || this.maxArgumentCount < 0 || this.maxBufferSize <= 0) {
+            throw new IllegalStateException("Illegal limits: max function length " + this.maxFunctionLength
+                    + ", max argument count " + this.maxArgumentCount + ", max buffer size " + this.maxBufferSize);
+        }
+
+        if (this.ignoredFunctionAction == null) {
+            throw new IllegalStateException("No ignored function action");
+        }
     }
 }
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import com.techsenger.ansi4j.core.api.ControlStringConsumer;
+import com.techsenger.ansi4j.core.api.Environment;
+import com.techsenger.ansi4j.core.api.FailureReason;
+import com.techsenger.ansi4j.core.api.Fragment;
+import com.techsenger.ansi4j.core.api.FunctionFailureReason;
+import com.techsenger.ansi4j.core.api.FunctionFinderResult;
+import com.techsenger.ansi4j.core.api.ParserFactory;
+import com.techsenger.ansi4j.core.api.iso6429.C1ControlFunction;
+import com.techsenger.ansi4j.core.api.iso6429.ControlFunction;
+import com.techsenger.ansi4j.core.api.iso6429.ControlFunctionType;
+import com.techsenger.ansi4j.core.api.utils.Characters;
+import com.techsenger.ansi4j.core.impl.utils.CharSequenceUtils;
+
+/**
+ * Parser that receives text by portions. Chars are put into one char buffer that is reused. Before new chars are
+ * put the parsed part of the buffer is dropped, so the buffer grows only when the unparsed part (for example, a long
+ * control string) and the new portion of chars don't fit it.
+ *
+ * @author Pavel Castornii
+ */
+abstract class AbstractBufferedParser extends AbstractParser {
+
+    private final CharsetDecoder decoder;
+
+    /**
+     * Chars from zero to position are the text of the parser. The buffer is always in write mode.
+     */
+    private CharBuffer charBuffer;
+
+    /**
+     * The length of the text given to the parser.
+     */
+    private int textLength = 0;
+
+    /**
+     * Number of chars dropped from the buffer, but not from the text of the parser yet.
+     */
+    private int droppedLength = 0;
+
+    private final ControlStringConsumer controlStringConsumer;
+
+    /**
+     * Terminator of control strings in the environment of the parser.
+     */
+    private final String controlStringTerminator;
+
+    /**
+     * Control string that is being given to {@link #controlStringConsumer} or null.
+     */
+    private ControlFunction streamedFunction;
+
+    /**
+     * Event of {@link #streamedFunction} or null if there is no such function or the event is not enabled.
+     */
+    private Object streamedFunctionEvent;
+
+    /**
+     * Current index of the parser at which {@link #streamedFunction} starts.
+     */
+    private int streamedFunctionIndex;
+
+    AbstractBufferedParser(Charset encoding, int bufferSize, ControlStringConsumer controlStringConsumer,
+            ParserFactory factory) {
+        super("", factory);
+        this.controlStringConsumer = controlStringConsumer;
+        this.controlStringTerminator = getPattern(C1ControlFunction.ST, factory.getEnvironment());
+        this.decoder = encoding.newDecoder()
+                .onMalformedInput(factory.getCodingErrorAction())
+                .onUnmappableCharacter(factory.getCodingErrorAction());
+        this.charBuffer = CharBuffer.allocate(bufferSize);
+    }
+
+    @Override
+    protected boolean delayFunctionParsing(FailureReason reason) {
+        return reason == FunctionFailureReason.NO_END_OF_FUNCTION;
+    }
+
+    @Override
+    protected int getMaxPendingLength() {
+        return Math.min(super.getMaxPendingLength(), this.getFactory().getMaxBufferSize());
+    }
+
+    @Override
+    protected Fragment doParse() {
+        while (true) {
+            if (this.streamedFunction != null && !this.streamControlString()) {
+                return null;
+            }
+            var fragment = super.doParse();
+            if (fragment != null) {
+                return fragment;
+            }
+            var finderResult = this.takeStreamedFunction();
+            if (finderResult == null) {
+                return null;
+            }
+            this.startStreaming(finderResult);
+        }
+    }
+
+    @Override
+    protected boolean isFunctionStreamed(FunctionFinderResult finderResult) {
+        return this.controlStringConsumer != null
+                && finderResult.getFunctionType() == ControlFunctionType.CONTROL_STRING;
+    }
+
+    protected CharsetDecoder getDecoder() {
+        return decoder;
+    }
+
+    protected CharBuffer getCharBuffer() {
+        return charBuffer;
+    }
+
+    /**
+     * Drops the parsed chars and grows the buffer if it has less than minRemaining free chars. This method must be
+     * called before new chars are put into the buffer.
+     *
+     * @param minRemaining
+     * @return char buffer.
+     */
+    protected CharBuffer prepareCharBuffer(int minRemaining) {
+        var offset = this.getOffset();
+        if (this.droppedLength == 0 && offset > 0) {
+            var length = charBuffer.position();
+            var array = charBuffer.array();
+            System.arraycopy(array, offset, array, 0, length - offset);
+            charBuffer.position(length - offset);
+            this.droppedLength = offset;
+        }
+        while (charBuffer.remaining() < minRemaining) {
+            this.growCharBuffer();
+        }
+        return charBuffer;
+    }
+
+    protected void growCharBuffer() {
+        var newBuffer = CharBuffer.allocate(Math.max(charBuffer.capacity() * 2, 2));
+        charBuffer.flip();
+        newBuffer.put(charBuffer);
+        this.charBuffer = newBuffer;
+    }
+
+    /**
+     * Decodes all complete characters in bytes, the buffer grows if necessary.
+     *
+     * @param bytes
+     * @param endOfInput
+     * @throws CharacterCodingException
+     */
+    protected void decode(ByteBuffer bytes, boolean endOfInput) throws CharacterCodingException {
+        while (true) {
+            var result = decoder.decode(bytes, charBuffer, endOfInput);
+            if (result.isOverflow()) {
+                this.growCharBuffer();
+            } else if (result.isError()) {
+                result.throwException();
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Flushes the decoder at the end of input and resets it, so that it can be used again.
+     */
+    protected void flushDecoder() {
+        while (decoder.flush(charBuffer).isOverflow()) {
+            this.growCharBuffer();
+        }
+        decoder.reset();
+    }
+
+    /**
+     * Gives the chars put into the buffer to the parser.
+     *
+     * @param endOfInput
+     * @return number of chars added to the text or -1 if the end of input is reached and there are no
+     * chars to add.
+     */
+    protected int updateText(boolean endOfInput) {
+        var oldLength = this.textLength - this.droppedLength;
+        var newLength = this.getTextLength(endOfInput);
+        this.textLength = newLength;
+        this.replaceText(CharBuffer.wrap(charBuffer.array(), 0, newLength), this.droppedLength);
+        this.droppedLength = 0;
+        if (this.getMetrics() != null) {
+            this.getMetrics().onBufferedText(newLength);
+        }
+        if (newLength > oldLength) {
+            return newLength - oldLength;
+        } else {
+            return endOfInput ? -1 : 0;
+        }
+    }
+
+    /**
+     * Char buffer is reused, so the text of the fragment must be created before the buffer is overwritten. After that
+     * the fragment doesn't keep a reference to the buffer.
+     *
+     * @param fragment
+     * @return
+     */
+    protected Fragment detach(Fragment fragment) {
+        fragment.getText();
+        return fragment;
+    }
+
+    /**
+     * Starts streaming of the function that begins at the offset.
+     *
+     * @param finderResult
+     */
+    private void startStreaming(FunctionFinderResult finderResult) {
+        this.streamedFunction = finderResult.getFunction();
+        this.streamedFunctionEvent = ParserEvents.beginLongFunction(this.streamedFunction, true);
+        this.streamedFunctionIndex = this.getCurrentIndex();
+        this.controlStringConsumer.onStart(this.streamedFunction, this.getCurrentIndex());
+        var delimiter = getPattern((C1ControlFunction) this.streamedFunction, this.getFactory().getEnvironment());
+        this.updateTextData(delimiter.length());
+    }
+
+    /**
+     * Gives the received part of the streamed control string to the consumer. The given chars are marked as parsed,
+     * so they are dropped from the buffer before next chars are received. A terminator is never split, because ESC at
+     * the end of the text is given to the parser only with next chars.
+     *
+     * @return true if the control string has ended, false if more chars are needed.
+     */
+    private boolean streamControlString() {
+        var text = this.getText();
+        var offset = this.getOffset();
+        var endIndex = text.length();
+        var terminatorIndex = CharSequenceUtils.indexOf(text, this.controlStringTerminator, offset);
+        if (terminatorIndex != -1) {
+            endIndex = terminatorIndex;
+        }
+        if (endIndex > offset) {
+            this.controlStringConsumer.onPayload(text, offset, endIndex);
+            this.updateTextData(endIndex - offset);
+        }
+        if (terminatorIndex == -1) {
+            return false;
+        }
+        this.updateTextData(this.controlStringTerminator.length());
+        this.streamedFunction = null;
+        var event = this.streamedFunctionEvent;
+        if (event != null) {
+            this.streamedFunctionEvent = null;
+            ParserEvents.updateLongFunction(event, this.getCurrentIndex() - this.streamedFunctionIndex, false);
+            ParserEvents.commitLongFunction(event);
+        }
+        this.controlStringConsumer.onEnd(this.getCurrentIndex());
+        return true;
+    }
+
+    /**
+     * Returns the length of the text that can be parsed. ESC at the end of the text is not given to the parser until
+     * next chars are received, because it can be the first char of a function (for example, CSI). The same is done
+     * for a high surrogate, so that a surrogate pair is never split.
+     *
+     * @param endOfInput
+     * @return
+     */
+    private int getTextLength(boolean endOfInput) {
+        var length = charBuffer.position();
+        if (!endOfInput && length > 0) {
+            var lastChar = charBuffer.get(length - 1);
+            if (lastChar == Characters.ESC || Character.isHighSurrogate(lastChar)) {
+                length--;
+            }
+        }
+        return length;
+    }
+
+    private static String getPattern(C1ControlFunction function, Environment environment) {
+        if (environment == Environment._7_BIT) {
+            return function.getPattern();
+        } else {
+            return function.get8BitPattern();
+        }
+    }
+}
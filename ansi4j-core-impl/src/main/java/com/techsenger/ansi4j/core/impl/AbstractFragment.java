@@ -19,8 +19,11 @@ package com.techsenger.ansi4j.core.impl;
 import com.techsenger.ansi4j.core.api.Fragment;
 import com.techsenger.ansi4j.core.api.FragmentType;
 import com.techsenger.ansi4j.core.api.utils.Characters;
+import java.nio.CharBuffer;
 
 /**
+ * Fragment keeps a reference to the parsed text and the bounds of its piece. The string is created only when it is
+ * requested, after that the reference to the parsed text is released, so the fragment doesn't keep it alive.
  *
  * @author Pavel Castornii
  */
@@ -28,17 +31,38 @@ abstract class AbstractFragment implements Fragment {
 
     private final FragmentType type;
 
-    private final String text;
+    /**
+     * The parsed text or null when {@link #text} is created. It is set to null only after {@link #text} is set, so
+     * if a thread reads null, it also sees the text.
+     */
+    private volatile CharSequence source;
+
+    private final int sourceStartIndex;
+
+    private final int sourceEndIndex;
 
     private final int startIndex;
 
     private final int endIndex;
 
-    AbstractFragment(FragmentType type, String text, int currentIndex) {
+    /**
+     * Lazily created text, see {@link #getText()}.
+     */
+    private volatile String text;
+
+    /**
+     * Position of the index 0 in the whole input, it is set only by parsers that work with windows.
+     */
+    private long basePosition = 0;
+
+    AbstractFragment(FragmentType type, CharSequence source, int sourceStartIndex, int sourceEndIndex,
+            int currentIndex) {
         this.type = type;
-        this.text = text;
+        this.source = source;
+        this.sourceStartIndex = sourceStartIndex;
+        this.sourceEndIndex = sourceEndIndex;
         this.startIndex = currentIndex;
-        this.endIndex = currentIndex + text.length();
+        this.endIndex = currentIndex + sourceEndIndex - sourceStartIndex;
     }
 
     @Override
@@ -56,17 +80,53 @@ abstract class AbstractFragment implements Fragment {
         return endIndex;
     }
 
+    @Override
+    public long getStartPosition() {
+        return basePosition + startIndex;
+    }
+
+    @Override
+    public long getEndPosition() {
+        return basePosition + endIndex;
+    }
+
     @Override
     public String getText() {
-        return text;
+        var t = this.text;
+        if (t == null) {
+            var s = this.source;
+            if (s == null) {
+                //another thread has created the text
+                return this.text;
+            }
+            t = s.subSequence(sourceStartIndex, sourceEndIndex).toString();
+            this.text = t;
+            this.source = null;
+        }
+        return t;
     }
 
     @Override
-    public String toString() {
+    public CharSequence getTextView() {
         var t = this.text;
         if (t != null) {
-            t = Characters.invisibleToUnicode(t);
+            return t;
         }
+        var s = this.source;
+        //bytes can't be viewed as chars without decoding
+        if (s == null || s instanceof ByteSequence) {
+            return getText();
+        }
+        return CharBuffer.wrap(s, sourceStartIndex, sourceEndIndex);
+    }
+
+    void setBasePosition(long basePosition) {
+        this.basePosition = basePosition;
+    }
+
+    @Override
+    public String toString() {
+        var t = Characters.invisibleToUnicode(getText());
         return "AbstractFragmentImpl{" + "type=" + type + ", text=" + t + ", startIndex=" + startIndex
                 + ", endIndex=" + endIndex + '}';
     }
@@ -16,14 +16,18 @@
 
 package com.techsenger.ansi4j.core.impl;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.util.Optional;
 import com.techsenger.ansi4j.core.api.FailureReason;
 import com.techsenger.ansi4j.core.api.Fragment;
+import com.techsenger.ansi4j.core.api.FunctionFailureReason;
 import com.techsenger.ansi4j.core.api.FunctionFinderResult;
+import com.techsenger.ansi4j.core.api.IgnoredFunctionAction;
 import com.techsenger.ansi4j.core.api.Parser;
 import com.techsenger.ansi4j.core.api.ParserFactory;
+import com.techsenger.ansi4j.core.api.ParserMetrics;
 import com.techsenger.ansi4j.core.api.FunctionHandlerResult;
+import com.techsenger.ansi4j.core.api.function.Function;
+import com.techsenger.ansi4j.core.api.iso6429.ControlFunction;
 
 /**
  *
@@ -33,15 +37,18 @@ abstract class AbstractParser implements Parser {
 
     protected enum FunctionProcessingResult {
 
-        NOT_FOUND, FOUND_BUT_DELAYED, FOUND_AND_HANDLED
+        NOT_FOUND, FOUND_BUT_DELAYED, FOUND_AND_HANDLED, FOUND_AND_STREAMED, FOUND_AND_DROPPED
     }
 
-    private static final Logger logger = LoggerFactory.getLogger(AbstractParser.class);
+    /**
+     * Text can never be null. The text is never cut, the parser moves {@link #offset} instead.
+     */
+    private CharSequence text;
 
     /**
-     * Text can never be null.
+     * Index in {@link #text} from which parsing continues. Everything before offset has been parsed.
      */
-    private String text;
+    private int offset = 0;
 
     private final ParserFactory factory;
 
@@ -50,15 +57,82 @@ abstract class AbstractParser implements Parser {
     private FunctionHandlerResult functionHandlerResult;
 
     /**
-     * As found function changes as text before function is parsed we use this variable.
+     * Function that begins at the offset and must be streamed or null. See {@link #takeStreamedFunction()}.
+     */
+    private FunctionFinderResult streamedFunctionResult;
+
+    /**
+     * As found function changes as text before function is parsed we use this variable. It is an index in
+     * {@link #text}.
      */
     private int foundFunctionIndex = -1;
 
+    /**
+     * Length of {@link #text} when the found function was delayed because its end wasn't found or -1. The handler
+     * doesn't scan the text before this index again.
+     */
+    private int scannedIndex = -1;
+
+    /**
+     * End index in {@link #text} of the function that is not interesting and must be skipped or -1.
+     */
+    private int ignoredFunctionEndIndex = -1;
+
+    /**
+     * Function that exceeded {@link #getMaxPendingLength()} and whose chars become text up to its end or null. So,
+     * the content of the function (for example, ESC in a control string) is never parsed as functions.
+     */
+    private ControlFunction skippedFunction;
+
+    /**
+     * Handler that finds the end of {@link #skippedFunction}.
+     */
+    private ResumableFunctionHandler skippedFunctionHandler;
+
+    /**
+     * Scan that is used to find the end of the functions without creating fragments for those that are not
+     * interesting. It is null if all functions are interesting.
+     */
+    private final FunctionScan scan;
+
     private int currentIndex = 0;
 
-    AbstractParser(String text, ParserFactory factory) {
+    /**
+     * Metrics of the factory or null.
+     */
+    private final ParserMetrics metrics;
+
+    /**
+     * Event of the function whose parsing is delayed or null. It is committed when the parser stops waiting for
+     * the end of the function.
+     */
+    private Object delayedFunctionEvent;
+
+    /**
+     * Error that stopped parsing or null, see {@link #takeParserError()}.
+     */
+    private Exception parserError;
+
+    AbstractParser(CharSequence text, ParserFactory factory) {
+        this(text, factory, factory.getMetrics());
+    }
+
+    /**
+     * Constructor for the parsers whose results are reported to the metrics by another object.
+     *
+     * @param text
+     * @param factory
+     * @param metrics metrics or null.
+     */
+    AbstractParser(CharSequence text, ParserFactory factory, ParserMetrics metrics) {
         this.text = text;
         this.factory = factory;
+        this.metrics = metrics;
+        if (factory.getInterestingFunctions() != null) {
+            this.scan = new FunctionScan();
+        } else {
+            this.scan = null;
+        }
     }
 
     @Override
@@ -68,10 +142,33 @@ abstract class AbstractParser implements Parser {
 
     protected abstract boolean delayFunctionParsing(FailureReason reason);
 
+    /**
+     * Checks if the function must be streamed by the parser instead of being given to its handler.
+     *
+     * @param finderResult
+     * @return
+     */
+    protected boolean isFunctionStreamed(FunctionFinderResult finderResult) {
+        return false;
+    }
+
+    /**
+     * Returns the function that begins at the offset and must be streamed or null if there is no such function. The
+     * parser that streams functions calls this method when {@link #doParse()} returns null and must continue
+     * streaming before calling {@link #doParse()} again.
+     *
+     * @return
+     */
+    protected FunctionFinderResult takeStreamedFunction() {
+        var finderResult = this.streamedFunctionResult;
+        this.streamedFunctionResult = null;
+        return finderResult;
+    }
+
     /**
      * Parses text field. So, when this method called this field can't be null.
      *
-     * There are two possible variants: a) index in at the beginning of the function b) there is a text before a
+     * There are two possible variants: a) offset in at the beginning of the function b) there is a text before a
      * function. In the case a) function is parsed and returned. In case b) function is parsed and saved, then
      * text is returned. With the second call saved function is returned.
      *
@@ -79,51 +176,53 @@ abstract class AbstractParser implements Parser {
      */
     protected Fragment doParse() {
         if (functionHandlerResult != null) {
-            var functionFragment = this.functionHandlerResult.getFragment().get();
-            this.updateTextData(functionFragment.getText().length());
-            this.functionFinderResult = null;
-            this.functionHandlerResult = null;
-            return functionFragment;
+            return this.takeFunctionFragment();
+        }
+        if (ignoredFunctionEndIndex != -1) {
+            this.dropIgnoredFunction();
         }
-        if (text.length() == 0) {
+        if (offset == text.length()) {
             return null;
         }
         var functionProcessingResult = this.findAndParseFunction();
-        var factory = this.getFactory();
-        var currentIndex = this.getCurrentIndex();
+        if (delayedFunctionEvent != null && functionProcessingResult != FunctionProcessingResult.FOUND_BUT_DELAYED) {
+            this.commitDelayedFunctionEvent();
+        }
         if (functionProcessingResult == FunctionProcessingResult.NOT_FOUND) {
+            if (offset == text.length()) {
+                //all functions were dropped
+                return null;
+            }
             //there are no functions
-            var t = factory.getTextHandler().handle(text, currentIndex).getFragment().get();
-            this.updateTextData(text.length());
-            return t;
+            return this.handleText(text.length());
+        } else if (functionProcessingResult == FunctionProcessingResult.FOUND_AND_DROPPED) {
+            //the function is dropped with the next call
+            return this.handleText(foundFunctionIndex);
+        } else if (functionProcessingResult == FunctionProcessingResult.FOUND_AND_STREAMED) {
+            if (foundFunctionIndex > offset) {
+                //there is a text before function
+                return this.handleText(foundFunctionIndex);
+            } else {
+                //the parser takes the function and streams it
+                this.streamedFunctionResult = this.functionFinderResult;
+                this.functionFinderResult = null;
+                return null;
+            }
         } else if (functionProcessingResult == FunctionProcessingResult.FOUND_BUT_DELAYED) {
-            var functionIndex = foundFunctionIndex;
-            if (functionIndex > 0) {
+            if (foundFunctionIndex > offset) {
                 //there is a text before function
-                var piece = text.substring(0, functionIndex);
-                var textFragment = factory.getTextHandler().handle(piece, currentIndex).getFragment().get();
-                this.updateTextData(piece.length());
-                foundFunctionIndex = 0;
-                return textFragment;
+                return this.handleText(foundFunctionIndex);
             } else {
                 return null;
             }
         } else {
             //there is a function
-            var functionIndex = foundFunctionIndex;
-            if (functionIndex == 0) {
+            if (foundFunctionIndex == offset) {
                 //there is no text before function
-                var functionFragment = this.functionHandlerResult.getFragment().get();
-                this.updateTextData(functionFragment.getText().length());
-                this.functionFinderResult = null;
-                this.functionHandlerResult = null;
-                return functionFragment;
+                return this.takeFunctionFragment();
             } else {
                 //there is a text before function
-                var piece = text.substring(0, functionIndex);
-                var textFragment = factory.getTextHandler().handle(piece, currentIndex).getFragment().get();
-                this.updateTextData(piece.length());
-                return textFragment;
+                return this.handleText(foundFunctionIndex);
             }
         }
     }
@@ -134,15 +233,25 @@ abstract class AbstractParser implements Parser {
      */
     protected FunctionProcessingResult findAndParseFunction() {
         var finder = factory.getFunctionFinder();
-        var handlerByType = factory.getFunctionHandlersByType();
-        int internalIndex = -1;
+        int searchIndex = offset - 1;
+        if (this.skippedFunction != null) {
+            var endIndex = this.skippedFunctionHandler.findEnd(text, offset, this.skippedFunction);
+            if (endIndex == -1) {
+                //all chars are a part of the skipped function
+                return FunctionProcessingResult.NOT_FOUND;
+            }
+            this.skippedFunction = null;
+            this.skippedFunctionHandler = null;
+            searchIndex = endIndex - 1;
+        }
         while (true) {
-            internalIndex = internalIndex + 1;
+            searchIndex = searchIndex + 1;
             FunctionFinderResult finderResult = null;
             //we can use save finder result not to find again
             if (functionFinderResult == null) {
                 this.foundFunctionIndex = -1;
-                var finderResultOptional = finder.find(internalIndex, text);
+                this.scannedIndex = -1;
+                var finderResultOptional = finder.find(searchIndex, text);
                 if (finderResultOptional.isEmpty()) {
                     return FunctionProcessingResult.NOT_FOUND;
                 } else {
@@ -152,22 +261,91 @@ abstract class AbstractParser implements Parser {
             } else {
                 finderResult = this.functionFinderResult;
             }
-            internalIndex = foundFunctionIndex;
-            var handler = handlerByType.get(finderResult.getFunctionType());
+            searchIndex = foundFunctionIndex;
+            if (this.isFunctionStreamed(finderResult)) {
+                this.functionFinderResult = finderResult;
+                this.functionHandlerResult = null;
+                return FunctionProcessingResult.FOUND_AND_STREAMED;
+            }
+            var handler = factory.getFunctionHandler(finderResult.getFunctionType());
             if (handler == null) {
                 this.functionFinderResult = null;
                 continue;
             }
-            var piece = text.substring(internalIndex);
-            var handlerResult = handler.handle(piece, finderResult.getFunction(), internalIndex + currentIndex);
+            FunctionHandlerResult handlerResult;
+            if (this.scannedIndex != -1 && handler instanceof ResumableFunctionHandler) {
+                handlerResult = ((ResumableFunctionHandler) handler).handle(text, foundFunctionIndex,
+                        finderResult.getFunction(), toCurrentIndex(foundFunctionIndex), this.scannedIndex);
+            } else if (this.scan != null && handler instanceof FunctionScanner) {
+                handlerResult = this.scanFunction((FunctionScanner) handler, finderResult);
+            } else {
+                handlerResult = handler.handle(text, foundFunctionIndex, finderResult.getFunction(),
+                        toCurrentIndex(foundFunctionIndex));
+            }
+            if (handlerResult != null && handlerResult.getFragment().isPresent()) {
+                //limits are checked before the interest, so that all parsers and visit give the same result
+                var fragment = handlerResult.getFragment().get();
+                var functionLength = fragment.getEndIndex() - fragment.getStartIndex();
+                if (functionLength > factory.getMaxFunctionLength()
+                        || fragment.getArgumentCount() > factory.getMaxArgumentCount()) {
+                    this.reportFunctionFailure(fragment.getFunction(), FunctionFailureReason.LIMIT_EXCEEDED);
+                    this.functionFinderResult = null;
+                    searchIndex = foundFunctionIndex + functionLength - 1;
+                    continue;
+                }
+                if (!factory.isInterestedIn(fragment.getFunction())) {
+                    this.ignoredFunctionEndIndex = foundFunctionIndex + functionLength;
+                    handlerResult = null;
+                }
+            }
+            if (handlerResult == null) {
+                //the function is not interesting
+                this.functionFinderResult = null;
+                if (factory.getIgnoredFunctionAction() == IgnoredFunctionAction.TEXT) {
+                    searchIndex = this.ignoredFunctionEndIndex - 1;
+                    this.ignoredFunctionEndIndex = -1;
+                    continue;
+                }
+                if (foundFunctionIndex > offset) {
+                    return FunctionProcessingResult.FOUND_AND_DROPPED;
+                }
+                this.dropIgnoredFunction();
+                searchIndex = offset - 1;
+                continue;
+            }
             var resultFragment = handlerResult.getFragment();
             if (resultFragment.isEmpty()) {
-                if (this.delayFunctionParsing(handlerResult.getFailureReason())) {
+                var failureReason = handlerResult.getFailureReason();
+                if (this.delayFunctionParsing(failureReason)) {
+                    if (failureReason == FunctionFailureReason.NO_END_OF_FUNCTION) {
+                        if (text.length() - foundFunctionIndex > this.getMaxPendingLength()) {
+                            //the scanned part becomes text and the rest of the function is skipped with next chars
+                            if (handler instanceof ResumableFunctionHandler) {
+                                this.skippedFunction = finderResult.getFunction();
+                                this.skippedFunctionHandler = (ResumableFunctionHandler) handler;
+                            }
+                            if (delayedFunctionEvent != null) {
+                                ParserEvents.updateLongFunction(delayedFunctionEvent,
+                                        text.length() - foundFunctionIndex, true);
+                            }
+                            this.reportFunctionFailure(finderResult.getFunction(),
+                                    FunctionFailureReason.LIMIT_EXCEEDED);
+                            this.functionFinderResult = null;
+                            searchIndex = text.length() - 1;
+                            continue;
+                        }
+                        this.scannedIndex = text.length();
+                    }
+                    if (this.metrics != null) {
+                        this.metrics.onParsingDelayed(finderResult.getFunction());
+                    }
+                    this.updateDelayedFunctionEvent(finderResult.getFunction(), text.length() - foundFunctionIndex);
                     this.functionFinderResult = finderResult;
                     this.functionHandlerResult = null;
                     return FunctionProcessingResult.FOUND_BUT_DELAYED;
                 } else {
-                    this.logFunctionFailure(finderResult, handlerResult);
+                    this.reportFunctionFailure(finderResult.getFunction(), failureReason);
+                    this.functionFinderResult = null;
                     continue;
                 }
             }
@@ -178,25 +356,214 @@ abstract class AbstractParser implements Parser {
     }
 
     protected void updateTextData(int length) {
-        text = text.substring(length);
+        offset += length;
         currentIndex += length;
+        if (metrics != null) {
+            metrics.onCharsParsed(length);
+        }
     }
 
-    protected String getText() {
+    protected CharSequence getText() {
         return text;
     }
 
-    protected void setText(String text) {
-        this.text = text;
+    /**
+     * Returns the metrics of the factory or null if there are no metrics.
+     *
+     * @return
+     */
+    protected ParserMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the index in the text from which parsing continues.
+     *
+     * @return
+     */
+    protected int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Sets current index. It is used by parsers whose current index is relative to a part of the input.
+     *
+     * @param currentIndex
+     */
+    protected void setCurrentIndex(int currentIndex) {
+        this.currentIndex = currentIndex;
+    }
+
+    /**
+     * Replaces the text. The new text must contain the unparsed part of the current text without the first
+     * droppedLength chars of the current text, that is all indexes in the text are shifted by droppedLength.
+     *
+     * @param newText
+     * @param droppedLength number of chars dropped from the beginning of the current text, not greater than offset.
+     */
+    protected void replaceText(CharSequence newText, int droppedLength) {
+        this.text = newText;
+        this.offset -= droppedLength;
+        if (foundFunctionIndex != -1) {
+            foundFunctionIndex -= droppedLength;
+        }
+        if (scannedIndex != -1) {
+            scannedIndex -= droppedLength;
+        }
+        if (ignoredFunctionEndIndex != -1) {
+            ignoredFunctionEndIndex -= droppedLength;
+        }
+    }
+
+    /**
+     * Sets the new text and forgets everything about the current one.
+     *
+     * @param newText
+     */
+    protected void resetText(CharSequence newText) {
+        this.text = newText;
+        this.offset = 0;
+        this.currentIndex = 0;
+        this.functionFinderResult = null;
+        this.functionHandlerResult = null;
+        this.streamedFunctionResult = null;
+        this.foundFunctionIndex = -1;
+        this.scannedIndex = -1;
+        this.ignoredFunctionEndIndex = -1;
+        this.skippedFunction = null;
+        this.skippedFunctionHandler = null;
+        this.delayedFunctionEvent = null;
     }
 
     protected ParserFactory getFactory() {
         return factory;
     }
 
-    protected void logFunctionFailure(FunctionFinderResult finderResult, FunctionHandlerResult handlerResult) {
-        logger.warn("Couldn't parse function={} at index={}. Reason is {}",
-                finderResult.getFunction(), this.getCurrentIndex() + finderResult.getFunctionIndex(),
-                handlerResult.getFailureReason());
+    /**
+     * Gives the error to the failure listener of the factory and keeps it, because {@link #parse()} returns null
+     * both at the end of the input and after the error.
+     *
+     * @param ex
+     */
+    protected void reportParserError(Exception ex) {
+        this.parserError = ex;
+        factory.getFailureListener().onParserError(ex);
+    }
+
+    /**
+     * Returns the error that stopped parsing and forgets it.
+     *
+     * @return error or null if there was no error since the last call.
+     */
+    Exception takeParserError() {
+        var ex = this.parserError;
+        this.parserError = null;
+        return ex;
+    }
+
+    /**
+     * Returns the max number of chars from the beginning of a delayed function to the end of the text. When the
+     * parser has more chars, it doesn't wait for the end of the function any more: the chars become text and the
+     * next chars are text up to the end of the function.
+     *
+     * @return
+     */
+    protected int getMaxPendingLength() {
+        return factory.getMaxFunctionLength();
+    }
+
+    protected void reportFunctionFailure(Function function, FailureReason reason) {
+        this.reportFunctionFailure(function, toCurrentIndex(foundFunctionIndex), reason);
+    }
+
+    /**
+     * Gives the failure to the failure listener of the factory.
+     *
+     * @param function
+     * @param index index of the function in the whole text.
+     * @param reason
+     */
+    protected void reportFunctionFailure(Function function, int index, FailureReason reason) {
+        factory.getFailureListener().onFunctionFailure(function, index, reason);
+    }
+
+    /**
+     * Scans the function and creates its fragment only if the function is interesting or exceeds the limits. In the
+     * last case the fragment is needed to check the limits before the interest.
+     *
+     * @return handler result or null if the function is not interesting. In the last case the end of the function
+     * is saved in {@link #ignoredFunctionEndIndex}.
+     */
+    private FunctionHandlerResult scanFunction(FunctionScanner scanner, FunctionFinderResult finderResult) {
+        try {
+            this.scan.setFunction(text, foundFunctionIndex, finderResult.getFunction(),
+                    finderResult.getFunctionType());
+            scanner.scan(text, foundFunctionIndex, finderResult.getFunction(), this.scan);
+            var endIndex = this.scan.getEndIndex();
+            if (endIndex == -1) {
+                return new FunctionHandlerResultImpl(Optional.empty(),
+                        (FunctionFailureReason) this.scan.getFailureReason());
+            }
+            if (!factory.isInterestedIn(this.scan.getFunction())
+                    && endIndex - foundFunctionIndex <= factory.getMaxFunctionLength()
+                    && this.scan.getCount() <= factory.getMaxArgumentCount()) {
+                this.ignoredFunctionEndIndex = endIndex;
+                return null;
+            }
+            var fragment = new FunctionFragmentImpl(text, foundFunctionIndex, endIndex,
+                    toCurrentIndex(foundFunctionIndex), this.scan.getFunction(), this.scan);
+            return new FunctionHandlerResultImpl(Optional.of(fragment), null);
+        } finally {
+            //the scan mustn't keep the text
+            this.scan.setFunction(null, -1, null, null);
+        }
+    }
+
+    private void updateDelayedFunctionEvent(Function function, int pendingLength) {
+        if (delayedFunctionEvent == null) {
+            delayedFunctionEvent = ParserEvents.beginLongFunction(function, false);
+            if (delayedFunctionEvent == null) {
+                return;
+            }
+        }
+        ParserEvents.updateLongFunction(delayedFunctionEvent, pendingLength, false);
+    }
+
+    private void commitDelayedFunctionEvent() {
+        var event = delayedFunctionEvent;
+        delayedFunctionEvent = null;
+        ParserEvents.commitLongFunction(event);
+    }
+
+    private void dropIgnoredFunction() {
+        this.updateTextData(this.ignoredFunctionEndIndex - offset);
+        this.ignoredFunctionEndIndex = -1;
+    }
+
+    private Fragment takeFunctionFragment() {
+        var functionFragment = this.functionHandlerResult.getFragment().get();
+        this.updateTextData(functionFragment.getEndIndex() - functionFragment.getStartIndex());
+        this.functionFinderResult = null;
+        this.functionHandlerResult = null;
+        if (metrics != null) {
+            metrics.onFunction(functionFragment.getFunction());
+        }
+        return functionFragment;
+    }
+
+    private Fragment handleText(int endIndex) {
+        var textFragment = factory.getTextHandler().handle(text, offset, endIndex, currentIndex).getFragment().get();
+        this.updateTextData(endIndex - offset);
+        if (metrics != null) {
+            metrics.onText();
+        }
+        return textFragment;
+    }
+
+    /**
+     * Converts index in text to index in the whole text.
+     */
+    private int toCurrentIndex(int index) {
+        return currentIndex + index - offset;
     }
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import com.techsenger.ansi4j.core.api.ByteParser;
+import com.techsenger.ansi4j.core.api.FailureReason;
+import com.techsenger.ansi4j.core.api.Fragment;
+import com.techsenger.ansi4j.core.api.ParserFactory;
+
+/**
+ *
+ * @author Pavel Castornii
+ */
+public class ByteParserImpl extends AbstractParser implements ByteParser {
+
+    private final ByteSequence bytes;
+
+    public ByteParserImpl(ByteBuffer buffer, Charset encoding, ParserFactory factory) {
+        this(new ByteSequence(buffer, encoding), factory);
+    }
+
+    private ByteParserImpl(ByteSequence bytes, ParserFactory factory) {
+        super(bytes, factory);
+        this.bytes = bytes;
+    }
+
+    @Override
+    public Fragment parse() {
+        try {
+            return this.doParse();
+        } catch (Exception ex) {
+            this.reportParserError(ex);
+            return null;
+        }
+    }
+
+    @Override
+    public ByteBuffer getBytes(Fragment fragment) {
+        if (fragment == null) {
+            throw new IllegalArgumentException("No fragment provided");
+        }
+        return this.bytes.getBytes(fragment.getStartIndex(), fragment.getEndIndex());
+    }
+
+    @Override
+    protected boolean delayFunctionParsing(FailureReason reason) {
+        return false;
+    }
+}
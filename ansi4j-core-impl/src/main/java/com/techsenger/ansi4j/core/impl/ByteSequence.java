@@ -0,0 +1,135 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Char sequence over bytes where every byte is one char (as in ISO-8859-1). As all control functions consist of
+ * bytes less than 0xA0, finder and handlers can work with it as with text. The string is created using the charset
+ * of the bytes, so UTF-8 text is decoded correctly.
+ *
+ * @author Pavel Castornii
+ */
+final class ByteSequence implements CharSequence {
+
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    /**
+     * 0x20 in every byte, all control codes are less than this value (C1 codes after inverting the high bit).
+     */
+    private static final long CONTROL_LIMITS = 0x2020202020202020L;
+
+    private final ByteBuffer buffer;
+
+    /**
+     * Absolute index of the first byte in the buffer.
+     */
+    private final int start;
+
+    private final int length;
+
+    private final Charset charset;
+
+    ByteSequence(ByteBuffer buffer, Charset charset) {
+        this(buffer, buffer.position(), buffer.remaining(), charset);
+    }
+
+    private ByteSequence(ByteBuffer buffer, int start, int length, Charset charset) {
+        this.buffer = buffer;
+        this.start = start;
+        this.length = length;
+        this.charset = charset;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+        }
+        return (char) (buffer.get(start + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int startIndex, int endIndex) {
+        checkRange(startIndex, endIndex);
+        return new ByteSequence(buffer, start + startIndex, endIndex - startIndex, charset);
+    }
+
+    @Override
+    public String toString() {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, length, charset);
+        }
+        var bytes = new byte[length];
+        buffer.get(start, bytes);
+        return new String(bytes, charset);
+    }
+
+    /**
+     * Skips the bytes that can't be control codes, a word of 8 bytes at a time. The check is branch free for the
+     * whole word: {@code (word - 0x20..20) & ~word & 0x80..80} isn't zero only if some byte is less than 0x20,
+     * because bytes with the high bit are excluded by {@code ~word}. C1 codes are checked in the same way after
+     * inverting the high bit, so 0x80 - 0x9F become 0x00 - 0x1F.
+     *
+     * @param fromIndex
+     * @param c1Codes if bytes from 0x80 to 0x9F are control codes.
+     * @return the index of the first word that can contain a control code or the index of the tail that is shorter
+     *      than a word.
+     */
+    int skipText(int fromIndex, boolean c1Codes) {
+        var index = fromIndex;
+        var lastWordIndex = length - Long.BYTES;
+        while (index <= lastWordIndex) {
+            var word = buffer.getLong(start + index);
+            if (hasControlCode(word) || (c1Codes && hasControlCode(word ^ HIGH_BITS))) {
+                break;
+            }
+            index += Long.BYTES;
+        }
+        return index;
+    }
+
+    /**
+     * Returns read-only bytes from startIndex, inclusive, to endIndex, exclusive.
+     *
+     * @param startIndex
+     * @param endIndex
+     * @return
+     */
+    ByteBuffer getBytes(int startIndex, int endIndex) {
+        checkRange(startIndex, endIndex);
+        return buffer.slice(start + startIndex, endIndex - startIndex).asReadOnlyBuffer();
+    }
+
+    private void checkRange(int startIndex, int endIndex) {
+        if (startIndex < 0 || endIndex > length || startIndex > endIndex) {
+            throw new IndexOutOfBoundsException("Range [" + startIndex + ", " + endIndex + ") out of bounds for length "
+                    + length);
+        }
+    }
+
+    private static boolean hasControlCode(long word) {
+        return ((word - CONTROL_LIMITS) & ~word & HIGH_BITS) != 0;
+    }
+}
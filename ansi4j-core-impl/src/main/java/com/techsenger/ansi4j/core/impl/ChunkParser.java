@@ -0,0 +1,134 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.impl;
+
+import java.nio.CharBuffer;
+import java.util.List;
+import com.techsenger.ansi4j.core.api.FailureListener;
+import com.techsenger.ansi4j.core.api.FailureReason;
+import com.techsenger.ansi4j.core.api.Fragment;
+import com.techsenger.ansi4j.core.api.FunctionFailureReason;
+import com.techsenger.ansi4j.core.api.ParserFactory;
+import com.techsenger.ansi4j.core.api.function.Function;
+
+/**
+ * Parses a chunk of the text. Indexes of fragments are indexes in the whole text. If the chunk isn't the last one,
+ * the parser stops at the first function whose end isn't in the chunk, so all returned fragments are the same as
+ * the fragments returned by string parser if the chunk starts at the fragment boundary.
+ *
+ * @author Pavel Castornii
+ */
+class ChunkParser extends AbstractParser {
+
+    /**
+     * Failure of a function or a parser error that is reported after the results of the chunks are merged, because
+     * the merged result doesn't contain all the fragments of the chunks and some parts of the text are parsed twice.
+     */
+    static final class Failure {
+
+        private final Function function;
+
+        private final int index;
+
+        private final FailureReason reason;
+
+        private final Exception error;
+
+        Failure(Function function, int index, FailureReason reason, Exception error) {
+            this.function = function;
+            this.index = index;
+            this.reason = reason;
+            this.error = error;
+        }
+
+        int getIndex() {
+            return index;
+        }
+
+        void report(FailureListener listener) {
+            if (this.error != null) {
+                listener.onParserError(this.error);
+            } else {
+                listener.onFunctionFailure(this.function, this.index, this.reason);
+            }
+        }
+    }
+
+    private final boolean lastChunk;
+
+    /**
+     * Failures that are reported later or null if failures are reported at once.
+     */
+    private final List<Failure> failures;
+
+    ChunkParser(CharSequence text, int startIndex, int endIndex, boolean lastChunk, ParserFactory factory) {
+        super(CharBuffer.wrap(text, startIndex, endIndex), factory);
+        this.lastChunk = lastChunk;
+        this.failures = null;
+        this.setCurrentIndex(startIndex);
+    }
+
+    /**
+     * Creates a parser that doesn't report anything to the metrics and adds failures to the list.
+     */
+    ChunkParser(CharSequence text, int startIndex, int endIndex, boolean lastChunk, ParserFactory factory,
+            List<Failure> failures) {
+        super(CharBuffer.wrap(text, startIndex, endIndex), factory, null);
+        this.lastChunk = lastChunk;
+        this.failures = failures;
+        this.setCurrentIndex(startIndex);
+    }
+
+    @Override
+    public Fragment parse() {
+        try {
+            return this.doParse();
+        } catch (Exception ex) {
+            if (this.failures != null) {
+                this.failures.add(new Failure(null, this.getCurrentIndex(), null, ex));
+            } else {
+                this.reportParserError(ex);
+            }
+            return null;
+        }
+    }
+
+    @Override
+    protected boolean delayFunctionParsing(FailureReason reason) {
+        return !this.lastChunk && reason == FunctionFailureReason.NO_END_OF_FUNCTION;
+    }
+
+    /**
+     * The function whose end isn't in the chunk is parsed later by a parser that has the whole text, so its length
+     * is checked there.
+     *
+     * @return
+     */
+    @Override
+    protected int getMaxPendingLength() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    protected void reportFunctionFailure(Function function, int index, FailureReason reason) {
+        if (this.failures != null) {
+            this.failures.add(new Failure(function, index, reason, null));
+        } else {
+            super.reportFunctionFailure(function, index, reason);
+        }
+    }
+}
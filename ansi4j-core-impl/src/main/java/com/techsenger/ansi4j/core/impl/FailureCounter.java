@@ -0,0 +1,86 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import com.techsenger.ansi4j.core.api.FailureListener;
+import com.techsenger.ansi4j.core.api.FailureReason;
+import com.techsenger.ansi4j.core.api.FunctionFailureReason;
+import com.techsenger.ansi4j.core.api.ParserMetrics;
+import com.techsenger.ansi4j.core.api.function.Function;
+
+/**
+ * Counts function failures by reasons and gives them to the metrics and to another listener. The counters of
+ * {@link FunctionFailureReason}s are kept in an array, so counting doesn't need any lookup.
+ *
+ * @author Pavel Castornii
+ */
+final class FailureCounter implements FailureListener {
+
+    private final FailureListener listener;
+
+    /**
+     * Metrics of the factory or null.
+     */
+    private final ParserMetrics metrics;
+
+    private final LongAdder[] functionFailureCounts = new LongAdder[FunctionFailureReason.values().length];
+
+    /**
+     * Counters of reasons that are not {@link FunctionFailureReason}s, for example, reasons of custom handlers.
+     */
+    private final Map<FailureReason, LongAdder> otherFailureCounts = new ConcurrentHashMap<>();
+
+    FailureCounter(FailureListener listener, ParserMetrics metrics) {
+        this.listener = listener;
+        this.metrics = metrics;
+        for (var i = 0; i < functionFailureCounts.length; i++) {
+            functionFailureCounts[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void onFunctionFailure(Function function, int index, FailureReason reason) {
+        this.getCounter(reason).increment();
+        if (this.metrics != null) {
+            this.metrics.onFunctionFailure(function, reason);
+        }
+        this.listener.onFunctionFailure(function, index, reason);
+    }
+
+    @Override
+    public void onParserError(Exception ex) {
+        this.listener.onParserError(ex);
+    }
+
+    long getCount(FailureReason reason) {
+        if (reason instanceof FunctionFailureReason) {
+            return functionFailureCounts[((FunctionFailureReason) reason).ordinal()].sum();
+        }
+        var counter = otherFailureCounts.get(reason);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    private LongAdder getCounter(FailureReason reason) {
+        if (reason instanceof FunctionFailureReason) {
+            return functionFailureCounts[((FunctionFailureReason) reason).ordinal()];
+        }
+        return otherFailureCounts.computeIfAbsent(reason, r -> new LongAdder());
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.impl;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import com.techsenger.ansi4j.core.api.FailureReason;
+import com.techsenger.ansi4j.core.api.FileParser;
+import com.techsenger.ansi4j.core.api.Fragment;
+import com.techsenger.ansi4j.core.api.FunctionFailureReason;
+import com.techsenger.ansi4j.core.api.ParserFactory;
+import com.techsenger.ansi4j.core.api.utils.Characters;
+
+/**
+ * File parser parses one mapped window of the file at a time. When the window is parsed, the next window is mapped
+ * from the first unparsed byte, so a function that crosses the window boundary is parsed again in the next window
+ * and nothing is copied. Mapped windows are released by the garbage collector.
+ *
+ * @author Pavel Castornii
+ */
+public class FileParserImpl extends AbstractParser implements FileParser {
+
+    private final FileChannel channel;
+
+    private final Charset encoding;
+
+    private final long fileSize;
+
+    /**
+     * Window size can grow if a function doesn't fit the window.
+     */
+    private int windowSize;
+
+    /**
+     * Position of the current window in the file.
+     */
+    private long windowPosition = 0;
+
+    private boolean windowMapped = false;
+
+    private boolean lastWindow = false;
+
+    public FileParserImpl(Path file, Charset encoding, int windowSize, ParserFactory factory) throws IOException {
+        super("", factory);
+        this.encoding = encoding;
+        this.windowSize = windowSize;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.fileSize = this.channel.size();
+    }
+
+    @Override
+    public Fragment parse() {
+        try {
+            while (true) {
+                var fragment = this.doParse();
+                if (fragment != null) {
+                    if (fragment instanceof AbstractFragment) {
+                        ((AbstractFragment) fragment).setBasePosition(this.windowPosition);
+                    }
+                    return fragment;
+                }
+                if (this.lastWindow) {
+                    return null;
+                }
+                this.mapWindow();
+            }
+        } catch (Exception ex) {
+            this.reportParserError(ex);
+            return null;
+        }
+    }
+
+    @Override
+    public long getCurrentPosition() {
+        return this.windowPosition + this.getCurrentIndex();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    @Override
+    protected boolean delayFunctionParsing(FailureReason reason) {
+        return !this.lastWindow && reason == FunctionFailureReason.NO_END_OF_FUNCTION;
+    }
+
+    /**
+     * Maps the window that starts from the first unparsed byte.
+     */
+    private void mapWindow() throws IOException {
+        var droppedLength = this.getOffset();
+        if (this.windowMapped && droppedLength == 0) {
+            //nothing was parsed in the window, so the function is longer than the window
+            this.windowSize = (int) Math.min(2L * this.windowSize, Integer.MAX_VALUE);
+        }
+        var position = this.windowPosition + droppedLength;
+        var size = Math.min(this.windowSize, this.fileSize - position);
+        var buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        this.lastWindow = position + size == this.fileSize;
+        buffer.limit(this.getTextLength(buffer));
+        this.windowPosition = position;
+        this.windowMapped = true;
+        this.replaceText(new ByteSequence(buffer, this.encoding), droppedLength);
+        this.setCurrentIndex(0);
+    }
+
+    /**
+     * Returns the length of the window that can be parsed. The bytes that can be the beginning of a function (ESC)
+     * or of a UTF-8 character at the end of the window are left for the next window.
+     *
+     * @param buffer
+     * @return
+     */
+    private int getTextLength(MappedByteBuffer buffer) {
+        var length = buffer.limit();
+        if (this.lastWindow || length == 0) {
+            return length;
+        }
+        if (buffer.get(length - 1) == Characters.ESC) {
+            return length - 1;
+        }
+        if (this.encoding.equals(StandardCharsets.UTF_8)) {
+            var index = length;
+            //skipping continuation bytes
+            while (index > 0 && length - index < 3 && (buffer.get(index - 1) & 0xC0) == 0x80) {
+                index--;
+            }
+            if (index > 0) {
+                var leadByte = buffer.get(index - 1) & 0xFF;
+                if (leadByte >= 0xC0) {
+                    var charLength = leadByte >= 0xF0 ? 4 : (leadByte >= 0xE0 ? 3 : 2);
+                    if (length - index + 1 < charLength) {
+                        return index - 1;
+                    }
+                }
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.impl;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.techsenger.ansi4j.core.api.Fragment;
+import com.techsenger.ansi4j.core.api.Parser;
+
+/**
+ * Publishes the fragments of one parser. A fragment is parsed only when it was requested, so nothing is buffered.
+ * Fragments are delivered by tasks of the executor, one task delivers up to batchSize fragments, so a fast
+ * subscriber doesn't pay a handoff per fragment and a slow one doesn't occupy the executor.
+ *
+ * @author Pavel Castornii
+ */
+final class FragmentPublisher implements Flow.Publisher<Fragment> {
+
+    private static final Logger logger = LoggerFactory.getLogger(FragmentPublisher.class);
+
+    private final Parser parser;
+
+    private final Executor executor;
+
+    private final int batchSize;
+
+    /**
+     * Parser is stateful, so it can have only one subscriber.
+     */
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    FragmentPublisher(Parser parser, Executor executor, int batchSize) {
+        this.parser = parser;
+        this.executor = executor;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Fragment> subscriber) {
+        Objects.requireNonNull(subscriber);
+        if (!this.subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+
+                @Override
+                public void request(long n) { }
+
+                @Override
+                public void cancel() { }
+            });
+            subscriber.onError(new IllegalStateException("Publisher can have only one subscriber"));
+            return;
+        }
+        var subscription = new FragmentSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private final class FragmentSubscription implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super Fragment> subscriber;
+
+        private final AtomicLong demand = new AtomicLong();
+
+        /**
+         * Number of the signals that haven't been processed by the delivery task. The task is scheduled only when
+         * this number changes from zero, so there is never more than one task.
+         */
+        private final AtomicInteger pendingSignals = new AtomicInteger();
+
+        private volatile boolean cancelled;
+
+        private volatile Throwable error;
+
+        FragmentSubscription(Flow.Subscriber<? super Fragment> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                this.error = new IllegalArgumentException("Illegal number of requested fragments: " + n);
+            } else {
+                this.demand.getAndAccumulate(n, (current, added) -> {
+                    var sum = current + added;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+            }
+            this.signal();
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+        }
+
+        @Override
+        public void run() {
+            var processedSignals = this.pendingSignals.get();
+            var deliveredCount = 0;
+            while (true) {
+                while (!this.cancelled) {
+                    if (this.error != null) {
+                        this.terminate(this.error);
+                        return;
+                    }
+                    if (this.demand.get() == 0) {
+                        break;
+                    }
+                    if (deliveredCount == batchSize) {
+                        //signals remain pending, so the new task continues delivery
+                        this.schedule();
+                        return;
+                    }
+                    Fragment fragment = null;
+                    try {
+                        fragment = parser.parse();
+                    } catch (Exception ex) {
+                        //custom parsers can throw
+                        this.terminate(ex);
+                        return;
+                    }
+                    if (fragment == null) {
+                        //built-in parsers give errors to the failure listener and return null
+                        Exception parserError = null;
+                        if (parser instanceof AbstractParser) {
+                            parserError = ((AbstractParser) parser).takeParserError();
+                        }
+                        this.terminate(parserError);
+                        return;
+                    }
+                    if (this.demand.get() != Long.MAX_VALUE) {
+                        this.demand.decrementAndGet();
+                    }
+                    try {
+                        this.subscriber.onNext(fragment);
+                    } catch (Exception ex) {
+                        //subscriber mustn't throw, so the subscription is considered cancelled
+                        logger.error("Error delivering fragment", ex);
+                        this.cancelled = true;
+                        return;
+                    }
+                    deliveredCount++;
+                }
+                if (this.cancelled) {
+                    return;
+                }
+                processedSignals = this.pendingSignals.addAndGet(-processedSignals);
+                if (processedSignals == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void signal() {
+            if (this.pendingSignals.getAndIncrement() == 0) {
+                this.schedule();
+            }
+        }
+
+        private void schedule() {
+            try {
+                executor.execute(this);
+            } catch (Exception ex) {
+                logger.error("Error scheduling fragment delivery", ex);
+                this.terminate(ex);
+            }
+        }
+
+        /**
+         * Completes the subscription, normally if there is no error.
+         *
+         * @param ex
+         */
+        private void terminate(Throwable ex) {
+            this.cancelled = true;
+            if (ex == null) {
+                this.subscriber.onComplete();
+            } else {
+                this.subscriber.onError(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.impl;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import com.techsenger.ansi4j.core.api.Environment;
+import com.techsenger.ansi4j.core.api.Fragment;
+import com.techsenger.ansi4j.core.api.IgnoredFunctionAction;
+import com.techsenger.ansi4j.core.api.ParserFactory;
+import com.techsenger.ansi4j.core.api.iso6429.C1ControlFunction;
+import com.techsenger.ansi4j.core.api.utils.Characters;
+
+/**
+ * Spliterator over the fragments of a part of the text. The start of the part is always the start of a fragment
+ * returned by string parser. The part is split only at the start of a function that is parsed successfully and
+ * isn't inside a control string, because only control strings can contain ESC (or C1 in 8-bit environment). So the
+ * fragments of all parts are exactly the fragments of string parser.
+ *
+ * @author Pavel Castornii
+ */
+final class FragmentSpliterator implements Spliterator<Fragment> {
+
+    /**
+     * Parts that are shorter are not split.
+     */
+    private static final int MIN_SPLIT_LENGTH = 4096;
+
+    private final CharSequence text;
+
+    private int startIndex;
+
+    private final int endIndex;
+
+    private final ParserFactory factory;
+
+    /**
+     * Patterns of control string opening delimiters in the environment of the factory.
+     */
+    private final String[] openingDelimiters;
+
+    private final String terminator;
+
+    /**
+     * True if it is known that the part has no control string delimiters.
+     */
+    private boolean delimitersAbsent;
+
+    /**
+     * The parser is created when traversal begins, after that the spliterator isn't split.
+     */
+    private ChunkParser parser;
+
+    FragmentSpliterator(CharSequence text, int startIndex, int endIndex, ParserFactory factory) {
+        this(text, startIndex, endIndex, factory, false);
+    }
+
+    private FragmentSpliterator(CharSequence text, int startIndex, int endIndex, ParserFactory factory,
+            boolean delimitersAbsent) {
+        this.text = text;
+        this.startIndex = startIndex;
+        this.endIndex = endIndex;
+        this.factory = factory;
+        this.delimitersAbsent = delimitersAbsent;
+        var delimiters = C1ControlFunction.getControlStringOpeningDelimiters();
+        this.openingDelimiters = new String[delimiters.size()];
+        var i = 0;
+        for (var delimiter : delimiters) {
+            this.openingDelimiters[i++] = this.getPattern(delimiter);
+        }
+        this.terminator = this.getPattern(C1ControlFunction.ST);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Fragment> action) {
+        if (this.parser == null) {
+            this.parser = new ChunkParser(this.text, this.startIndex, this.endIndex, true, this.factory);
+        }
+        var fragment = this.parser.parse();
+        if (fragment == null) {
+            return false;
+        }
+        action.accept(fragment);
+        return true;
+    }
+
+    @Override
+    public Spliterator<Fragment> trySplit() {
+        if (this.parser != null || this.endIndex - this.startIndex < MIN_SPLIT_LENGTH) {
+            return null;
+        }
+        var middle = this.startIndex + (this.endIndex - this.startIndex) / 2;
+        var splitIndex = -1;
+        var delimiterFound = false;
+        for (var i = middle; i >= this.startIndex; i--) {
+            if (!this.isFunctionStart(this.text.charAt(i))) {
+                continue;
+            }
+            if (!this.delimitersAbsent) {
+                if (this.startsWith(i, this.terminator)) {
+                    //there is no open control string after the terminator
+                    delimiterFound = true;
+                    if (splitIndex != -1) {
+                        break;
+                    }
+                    continue;
+                }
+                if (this.isOpeningDelimiter(i)) {
+                    //control string can contain the functions that were found after it
+                    delimiterFound = true;
+                    splitIndex = i > this.startIndex && this.isFunctionParsed(i) ? i : -1;
+                    continue;
+                }
+            }
+            if (splitIndex == -1 && i > this.startIndex && this.isFunctionParsed(i)) {
+                splitIndex = i;
+                if (this.delimitersAbsent) {
+                    break;
+                }
+            }
+        }
+        if (splitIndex == -1) {
+            return null;
+        }
+        var prefix = new FragmentSpliterator(this.text, this.startIndex, splitIndex, this.factory,
+                this.delimitersAbsent || !delimiterFound);
+        this.startIndex = splitIndex;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        //every fragment has at least one char
+        if (this.parser == null) {
+            return this.endIndex - this.startIndex;
+        } else {
+            return this.endIndex - this.parser.getCurrentIndex();
+        }
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+    }
+
+    private String getPattern(C1ControlFunction function) {
+        if (this.factory.getEnvironment() == Environment._7_BIT) {
+            return function.getPattern();
+        } else {
+            return function.get8BitPattern();
+        }
+    }
+
+    private boolean isFunctionStart(char c) {
+        return c == Characters.ESC || (c >= 0x80 && c <= 0x9F && this.factory.getEnvironment() == Environment._8_BIT);
+    }
+
+    private boolean isOpeningDelimiter(int index) {
+        for (var delimiter : this.openingDelimiters) {
+            if (this.startsWith(index, delimiter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean startsWith(int index, String pattern) {
+        if (index + pattern.length() > this.endIndex) {
+            return false;
+        }
+        for (var i = 0; i < pattern.length(); i++) {
+            if (this.text.charAt(index + i) != pattern.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if there is a function at the index that is parsed successfully, doesn't exceed the limits of the
+     * factory and doesn't become text because it isn't interesting.
+     *
+     * @param index
+     * @return
+     */
+    private boolean isFunctionParsed(int index) {
+        var finderResult = this.factory.getFunctionFinder().find(index, this.text);
+        if (finderResult.isEmpty() || finderResult.get().getFunctionIndex() != index) {
+            return false;
+        }
+        var handler = this.factory.getFunctionHandler(finderResult.get().getFunctionType());
+        if (handler == null) {
+            return false;
+        }
+        var fragment = handler.handle(this.text, index, finderResult.get().getFunction(), index).getFragment();
+        return fragment.isPresent()
+                && fragment.get().getEndIndex() - fragment.get().getStartIndex() <= this.factory.getMaxFunctionLength()
+                && fragment.get().getArgumentCount() <= this.factory.getMaxArgumentCount()
+                && (this.factory.getIgnoredFunctionAction() == IgnoredFunctionAction.DROP
+                        || this.factory.isInterestedIn(fragment.get().getFunction()));
+    }
+}
@@ -17,9 +17,8 @@
 package com.techsenger.ansi4j.core.impl;
 
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.techsenger.ansi4j.core.api.Environment;
@@ -41,150 +40,167 @@ public class FunctionFinderImpl implements FunctionFinder {
 
     private static final Logger logger = LoggerFactory.getLogger(FunctionFinderImpl.class);
 
-    private static class FunctionPair {
+    private static final Set<C1ControlFunction> CONTROL_STRING_OPENING_DELIMITERS =
+            C1ControlFunction.getControlStringOpeningDelimiters();
 
-        private final FunctionType type;
+    /**
+     * The size of the table of the functions that are indexed by the char itself, it covers C0 and 8-bit C1 codes.
+     */
+    private static final int CHAR_TABLE_SIZE = 0xA0;
 
-        private final ControlFunction function;
-
-        FunctionPair(FunctionType type, ControlFunction function) {
-            this.type = type;
-            this.function = function;
-        }
-    }
+    /**
+     * The size of the table of the functions that are indexed by the char after ESC.
+     */
+    private static final int ESC_TABLE_SIZE = 0x80;
 
     private Environment environment;
 
-    private final Map<Integer, ControlFunction> c0FunctionsByCode = new HashMap<>();
+    /**
+     * C0 functions and, in 8-bit environment, C1 functions by their code. Function types are kept in the parallel
+     * array.
+     */
+    private final ControlFunction[] functionsByChar = new ControlFunction[CHAR_TABLE_SIZE];
 
-    private final Map<String, ControlFunction> c1FunctionsByPattern = new HashMap<>();
+    private final FunctionType[] functionTypesByChar = new FunctionType[CHAR_TABLE_SIZE];
 
-    private final Map<Integer, ControlFunction> c1FunctionsByCode = new HashMap<>();
+    /**
+     * Independent functions and, in 7-bit environment, C1 functions by the char after ESC. Their ranges don't
+     * overlap. Function types are kept in the parallel array.
+     */
+    private final ControlFunction[] escFunctionsByChar = new ControlFunction[ESC_TABLE_SIZE];
 
-    private final Map<String, ControlFunction> independentFunctionsByPattern = new HashMap<>();
+    private final FunctionType[] escFunctionTypesByChar = new FunctionType[ESC_TABLE_SIZE];
 
     @Override
-    public Optional<FunctionFinderResult> find(int startIndex, String text) {
-        for (int offset = startIndex; offset < text.length();) {
-            final int codePoint = text.codePointAt(offset);
-            FunctionPair pair = null;
-            if (codePoint == Characters.ESC) {
-                //escape is processed separately because it can be of many types
-                pair = this.resolveIndependentFunction(text, offset);
-                if (pair == null && this.environment == Environment._7_BIT) {
-                    pair = this.resolveC1Function(text, offset, codePoint);
-                }
-                if (pair == null) {
-                    pair = this.resolveC0Function(codePoint);
-                }
-            } else if (codePoint <= 31) {
-                pair = this.resolveC0Function(codePoint);
-            } else if (codePoint >= 0x80 && codePoint <= 0x9F && this.environment == Environment._8_BIT) {
-                pair = this.resolveC1Function(text, offset, codePoint);
-            }
-            if (pair != null) {
-                var result = new FunctionFinderResultImpl(offset, pair.type, pair.function);
-                return Optional.of(result);
-            }
-            offset += Character.charCount(codePoint);
+    public Optional<FunctionFinderResult> find(int startIndex, CharSequence text) {
+        var index = this.indexOf(startIndex, text);
+        if (index == -1) {
+            return Optional.empty();
+        }
+        var escChar = this.getEscChar(text, index);
+        FunctionFinderResult result;
+        if (escChar != -1) {
+            result = new FunctionFinderResultImpl(index, this.escFunctionTypesByChar[escChar],
+                    this.escFunctionsByChar[escChar]);
+        } else {
+            var c = text.charAt(index);
+            result = new FunctionFinderResultImpl(index, this.functionTypesByChar[c], this.functionsByChar[c]);
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * Finds function in text without creating objects. The found function is set to the scan.
+     *
+     * @param startIndex
+     * @param text
+     * @param scan
+     * @return true if function is found, otherwise false.
+     */
+    public boolean find(int startIndex, CharSequence text, FunctionScan scan) {
+        var index = this.indexOf(startIndex, text);
+        if (index == -1) {
+            return false;
+        }
+        var escChar = this.getEscChar(text, index);
+        if (escChar != -1) {
+            scan.setFunction(text, index, this.escFunctionsByChar[escChar], this.escFunctionTypesByChar[escChar]);
+        } else {
+            var c = text.charAt(index);
+            scan.setFunction(text, index, this.functionsByChar[c], this.functionTypesByChar[c]);
         }
-        return Optional.empty();
+        return true;
     }
 
     @Override
     public void initialize(Environment environment) {
+        if (environment != Environment._7_BIT && environment != Environment._8_BIT) {
+            throw new IllegalStateException("Unknown environment");
+        }
         this.environment = environment;
         //C0
-        //we adding all N functions, where 2 pairs have code duplicates, so, after we have N-2 entries in map.
-        Arrays.asList(C0ControlFunction.values()).forEach(f -> {
-            c0FunctionsByCode.put((int) f.getPattern().charAt(0), f);
-        });
+        //we adding all N functions, where 2 pairs have code duplicates, so, after we have N-2 entries in table.
+        Arrays.asList(C0ControlFunction.values()).forEach(f -> this.addFunction(f.getPattern().charAt(0), f));
         //now we set correct functions by environment
         if (this.environment == Environment._7_BIT) {
-            var f = C0ControlFunction.SO;
-            c0FunctionsByCode.put((int) f.getPattern().charAt(0), f);
-            f = C0ControlFunction.SI;
-            c0FunctionsByCode.put((int) f.getPattern().charAt(0), f);
-        } else if (this.environment == Environment._8_BIT) {
-            var f = C0ControlFunction.LS0;
-            c0FunctionsByCode.put((int) f.getPattern().charAt(0), f);
-            f = C0ControlFunction.LS1;
-            c0FunctionsByCode.put((int) f.getPattern().charAt(0), f);
+            this.addFunction(C0ControlFunction.SO.getPattern().charAt(0), C0ControlFunction.SO);
+            this.addFunction(C0ControlFunction.SI.getPattern().charAt(0), C0ControlFunction.SI);
+        } else {
+            this.addFunction(C0ControlFunction.LS0.getPattern().charAt(0), C0ControlFunction.LS0);
+            this.addFunction(C0ControlFunction.LS1.getPattern().charAt(0), C0ControlFunction.LS1);
         }
-        logger.debug("Added {} C0 functions to index in {}", c0FunctionsByCode.size(), this.environment);
+        logger.debug("Added C0 functions to index in {}", this.environment);
         //C1
         if (this.environment == Environment._7_BIT) {
-            Arrays.asList(C1ControlFunction.values()).forEach(f -> {
-                c1FunctionsByPattern.put(f.getPattern(), f);
-            });
-            logger.debug("Added {} C1 functions to index in {}", c1FunctionsByPattern.size(), this.environment);
-        } else if (this.environment == Environment._8_BIT) {
-            Arrays.asList(C1ControlFunction.values()).forEach(f -> {
-                c1FunctionsByCode.put((int) ((C1ControlFunction) f).get8BitPattern().charAt(0), f);
-            });
-            logger.debug("Added {} C1 functions to index in {}", c1FunctionsByCode.size(), this.environment);
+            Arrays.asList(C1ControlFunction.values()).forEach(f -> this.addEscFunction(f.getPattern().charAt(1), f));
         } else {
-            throw new IllegalStateException("Unknown environment");
+            Arrays.asList(C1ControlFunction.values()).forEach(f -> this.addFunction(f.get8BitPattern().charAt(0), f));
         }
-        //independent
+        logger.debug("Added {} C1 functions to index in {}", C1ControlFunction.values().length, this.environment);
+        //independent, Fs is represented by a bit combination from 06/00 to 07/14.
         Arrays.asList(IndependentControlFunction.values()).forEach(f -> {
-            independentFunctionsByPattern.put(f.getPattern(), f);
+            this.addEscFunction(f.getPattern().charAt(1), f);
         });
-        logger.debug("Added {} independent functions to index in {}", independentFunctionsByPattern.size(),
+        logger.debug("Added {} independent functions to index in {}", IndependentControlFunction.values().length,
                 this.environment);
     }
 
-    private FunctionPair resolveIndependentFunction(String functionText, int offset) {
-        ControlFunction function = null;
-        if (offset + 1 >= functionText.length()) {
-                return null;
-        }
-        var codePoint = functionText.codePointAt(offset + 1);
-        //Fs is represented by a bit combination from 06/00 to 07/14.
-        if (codePoint >= 0x60 && codePoint <= 0x7E) {
-            var identifier = "" + Characters.ESC + new String(new int[] {codePoint}, 0, 1);
-            function = this.independentFunctionsByPattern.get(identifier);
-            if (function != null) {
-                return new FunctionPair(ControlFunctionType.INDEPENDENT_FUNCTION, function);
-            } else {
-                return null;
-            }
+    private static FunctionType getFunctionType(ControlFunction function) {
+        if (function instanceof C0ControlFunction) {
+            return ControlFunctionType.C0_SET;
+        } else if (function instanceof IndependentControlFunction) {
+            return ControlFunctionType.INDEPENDENT_FUNCTION;
+        } else if (function == C1ControlFunction.CSI) {
+            return ControlFunctionType.CONTROL_SEQUENCE;
+        } else if (CONTROL_STRING_OPENING_DELIMITERS.contains(function)) {
+            return ControlFunctionType.CONTROL_STRING;
         } else {
-            return null;
+            return ControlFunctionType.C1_SET;
         }
     }
 
-    private FunctionPair resolveC1Function(String functionText, int offset, int codePoint) {
-        ControlFunction function = null;
-        if (this.environment == Environment._7_BIT) {
-            if (offset + 1 >= functionText.length()) {
-                return null;
-            }
-            var identifier = "" + Characters.ESC + new String(new int[] {functionText.codePointAt(offset + 1)}, 0, 1);
-            function = this.c1FunctionsByPattern.get(identifier);
-        } else if (this.environment == Environment._8_BIT) {
-            function = this.c1FunctionsByCode.get(codePoint);
-        }
-        if (function == null) {
-            return null;
+    private void addFunction(char c, ControlFunction function) {
+        this.functionsByChar[c] = function;
+        this.functionTypesByChar[c] = getFunctionType(function);
+    }
+
+    private void addEscFunction(char c, ControlFunction function) {
+        this.escFunctionsByChar[c] = function;
+        this.escFunctionTypesByChar[c] = getFunctionType(function);
+    }
+
+    /**
+     * Returns the index of the first function. All function codes are in BMP, so text is checked char by char,
+     * surrogates never match. Bytes are skipped by words before that.
+     */
+    private int indexOf(int startIndex, CharSequence text) {
+        var table = this.functionsByChar;
+        var length = text.length();
+        var from = startIndex;
+        if (text instanceof ByteSequence) {
+            from = ((ByteSequence) text).skipText(startIndex, this.environment == Environment._8_BIT);
         }
-        var openingDelimiters = C1ControlFunction.getControlStringOpeningDelimiters();
-        if (function == C1ControlFunction.CSI) {
-            return new FunctionPair(ControlFunctionType.CONTROL_SEQUENCE, function);
-        } else if (openingDelimiters.contains(function)) {
-            return new FunctionPair(ControlFunctionType.CONTROL_STRING, function);
-        } else {
-            return new FunctionPair(ControlFunctionType.C1_SET, function);
+        for (var i = from; i < length; i++) {
+            var c = text.charAt(i);
+            if (c < CHAR_TABLE_SIZE && table[c] != null) {
+                return i;
+            }
         }
+        return -1;
     }
 
-    private FunctionPair resolveC0Function(int codePoint) {
-        ControlFunction function = this.c0FunctionsByCode.get(codePoint);
-        if (function != null) {
-            return new FunctionPair(ControlFunctionType.C0_SET, function);
-        } else {
-            return null;
+    /**
+     * Returns the char after ESC if the function at the index is ESC followed by a char of independent or 7-bit C1
+     * function, otherwise -1.
+     */
+    private int getEscChar(CharSequence text, int index) {
+        if (text.charAt(index) != Characters.ESC || index + 1 >= text.length()) {
+            return -1;
+        }
+        var c = text.charAt(index + 1);
+        if (c < ESC_TABLE_SIZE && this.escFunctionsByChar[c] != null) {
+            return c;
         }
+        return -1;
     }
-
 }
@@ -16,12 +16,15 @@
 
 package com.techsenger.ansi4j.core.impl;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import com.techsenger.ansi4j.core.api.FragmentType;
 import com.techsenger.ansi4j.core.api.FunctionFragment;
 import com.techsenger.ansi4j.core.api.function.Function;
 import com.techsenger.ansi4j.core.api.function.FunctionArgument;
+import com.techsenger.ansi4j.core.api.function.FunctionArguments;
+import com.techsenger.ansi4j.core.impl.function.FunctionArgumentImpl;
 
 /**
  *
@@ -29,24 +32,104 @@ import com.techsenger.ansi4j.core.api.function.FunctionArgument;
  */
 public class FunctionFragmentImpl extends AbstractFragment implements FunctionFragment {
 
+    private static final int[] NO_DATA = new int[0];
+
     private final Function function;
 
-    private final List<FunctionArgument> arguments;
+    private final int argumentCount;
+
+    /**
+     * Integer values of the arguments followed by two bit masks, the first one marks default arguments, the second
+     * one marks the arguments that aren't integers. Every mask takes {@link #getMaskLength(int)} ints.
+     */
+    private final int[] argumentData;
+
+    /**
+     * Values of the arguments that aren't integers or null if all arguments are integers.
+     */
+    private final Object[] objectArguments;
+
+    /**
+     * Argument list, it is created lazily for the fragments that were created from {@link FunctionArguments}.
+     */
+    private List<FunctionArgument> arguments;
 
     /**
      *
-     * @param text
+     * @param source the parsed text.
+     * @param sourceStartIndex start index of the function in source, inclusive.
+     * @param sourceEndIndex end index of the function in source, exclusive.
+     * @param currentIndex index of the function in the whole text.
      * @param function
      * @param arguments modifiable collection.
      */
-    public FunctionFragmentImpl(String text, int currentIndex, Function function, List<FunctionArgument> arguments) {
-        super(FragmentType.FUNCTION, text, currentIndex);
+    public FunctionFragmentImpl(CharSequence source, int sourceStartIndex, int sourceEndIndex, int currentIndex,
+            Function function, List<FunctionArgument> arguments) {
+        super(FragmentType.FUNCTION, source, sourceStartIndex, sourceEndIndex, currentIndex);
         this.function = function;
         if (arguments != null) {
             this.arguments = Collections.unmodifiableList(arguments);
         } else {
             this.arguments = null;
         }
+        this.argumentCount = arguments == null ? 0 : arguments.size();
+        this.argumentData = createArgumentData(this.argumentCount);
+        Object[] objects = null;
+        for (var i = 0; i < this.argumentCount; i++) {
+            var argument = arguments.get(i);
+            var value = argument.getValue();
+            if (value instanceof Integer) {
+                this.argumentData[i] = (Integer) value;
+            } else {
+                if (objects == null) {
+                    objects = new Object[this.argumentCount];
+                }
+                objects[i] = value;
+                this.setBit(i, 2);
+            }
+            if (argument.isDefault()) {
+                this.setBit(i, 1);
+            }
+        }
+        this.objectArguments = objects;
+    }
+
+    /**
+     * Creates a fragment that keeps integer arguments without boxing. Argument list is created only when it is
+     * requested.
+     *
+     * @param source the parsed text.
+     * @param sourceStartIndex start index of the function in source, inclusive.
+     * @param sourceEndIndex end index of the function in source, exclusive.
+     * @param currentIndex index of the function in the whole text.
+     * @param function
+     * @param arguments arguments that are copied.
+     */
+    public FunctionFragmentImpl(CharSequence source, int sourceStartIndex, int sourceEndIndex, int currentIndex,
+            Function function, FunctionArguments arguments) {
+        super(FragmentType.FUNCTION, source, sourceStartIndex, sourceEndIndex, currentIndex);
+        this.function = function;
+        this.argumentCount = arguments.getCount();
+        this.argumentData = createArgumentData(this.argumentCount);
+        if (this.argumentCount == 0) {
+            this.arguments = Collections.emptyList();
+        }
+        Object[] objects = null;
+        for (var i = 0; i < this.argumentCount; i++) {
+            if (arguments.isInt(i)) {
+                this.argumentData[i] = arguments.getInt(i);
+            } else {
+                if (objects == null) {
+                    objects = new Object[this.argumentCount];
+                }
+                objects[i] = arguments.getValue(i);
+                this.setBit(i, 2);
+            }
+            if (arguments.isDefault(i)) {
+                this.setBit(i, 1);
+            }
+        }
+        this.objectArguments = objects;
     }
 
     @Override
@@ -56,12 +139,85 @@ public class FunctionFragmentImpl extends AbstractFragment implements FunctionFr
 
     @Override
     public List<FunctionArgument> getArguments() {
-        return this.arguments;
+        var list = this.arguments;
+        if (list == null && this.argumentCount != 0) {
+            var created = new ArrayList<FunctionArgument>(this.argumentCount);
+            for (var i = 0; i < this.argumentCount; i++) {
+                Object value;
+                if (this.isIntArgument(i)) {
+                    value = this.argumentData[i];
+                } else {
+                    value = this.objectArguments[i];
+                }
+                created.add(new FunctionArgumentImpl(value, this.isDefaultArgument(i)));
+            }
+            list = Collections.unmodifiableList(created);
+            this.arguments = list;
+        }
+        return list;
+    }
+
+    @Override
+    public int getArgumentCount() {
+        return this.argumentCount;
+    }
+
+    @Override
+    public boolean isDefaultArgument(int index) {
+        this.checkIndex(index);
+        return this.isBitSet(index, 1);
+    }
+
+    @Override
+    public boolean isIntArgument(int index) {
+        this.checkIndex(index);
+        return !this.isBitSet(index, 2);
+    }
+
+    @Override
+    public int getIntArgument(int index) {
+        if (!this.isIntArgument(index)) {
+            throw new IllegalStateException("Argument " + index + " is not an integer");
+        }
+        return this.argumentData[index];
     }
 
     @Override
     public String toString() {
-        return "FunctionFragment{" + "function=" + function + ", arguments=" + arguments + '}'
+        return "FunctionFragment{" + "function=" + function + ", arguments=" + getArguments() + '}'
                 + "->" + super.toString();
     }
+
+    private static int getMaskLength(int count) {
+        return (count + Integer.SIZE - 1) / Integer.SIZE;
+    }
+
+    private static int[] createArgumentData(int count) {
+        if (count == 0) {
+            return NO_DATA;
+        }
+        return new int[count + 2 * getMaskLength(count)];
+    }
+
+    /**
+     * Sets the bit of the argument in the mask.
+     *
+     * @param index argument index.
+     * @param mask mask number, starting from 1.
+     */
+    private void setBit(int index, int mask) {
+        var word = this.argumentCount + (mask - 1) * getMaskLength(this.argumentCount) + index / Integer.SIZE;
+        this.argumentData[word] |= 1 << (index % Integer.SIZE);
+    }
+
+    private boolean isBitSet(int index, int mask) {
+        var word = this.argumentCount + (mask - 1) * getMaskLength(this.argumentCount) + index / Integer.SIZE;
+        return (this.argumentData[word] & (1 << (index % Integer.SIZE))) != 0;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= this.argumentCount) {
+            throw new IndexOutOfBoundsException("Illegal argument index: " + index);
+        }
+    }
 }
@@ -28,6 +28,6 @@ public interface FunctionMatcher {
      * @param text
      * @return descriptor if function was matched, otherwise null.
      */
-    FunctionDescriptor match(int startIndex, String text);
+    FunctionDescriptor match(int startIndex, CharSequence text);
 
 }
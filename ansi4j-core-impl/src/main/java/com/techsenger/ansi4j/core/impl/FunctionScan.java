@@ -0,0 +1,219 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.impl;
+
+import java.util.Arrays;
+import com.techsenger.ansi4j.core.api.FailureReason;
+import com.techsenger.ansi4j.core.api.function.Function;
+import com.techsenger.ansi4j.core.api.function.FunctionArguments;
+import com.techsenger.ansi4j.core.api.function.FunctionType;
+import com.techsenger.ansi4j.core.api.iso6429.ControlFunction;
+
+/**
+ * Mutable result of finding and scanning one function. One instance is reused for all functions of a text, so
+ * finding and scanning functions don't create objects.
+ *
+ * @author Pavel Castornii
+ */
+public final class FunctionScan implements FunctionArguments {
+
+    private static final byte INT_VALUE = 0;
+
+    /**
+     * Text value that is kept as indexes in the text.
+     */
+    private static final byte TEXT_VALUE = 1;
+
+    private static final byte OBJECT_VALUE = 2;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private CharSequence text;
+
+    private int functionIndex = -1;
+
+    private Function function;
+
+    private FunctionType functionType;
+
+    private int endIndex = -1;
+
+    private FailureReason failureReason;
+
+    private int count;
+
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+
+    private boolean[] defaults = new boolean[INITIAL_CAPACITY];
+
+    private int[] ints = new int[INITIAL_CAPACITY];
+
+    private int[] endIndexes = new int[INITIAL_CAPACITY];
+
+    private Object[] objects;
+
+    /**
+     * Saves the function that was found in the text and clears the result of the previous scan.
+     *
+     * @param text
+     * @param functionIndex
+     * @param function
+     * @param functionType
+     */
+    public void setFunction(CharSequence text, int functionIndex, ControlFunction function,
+            FunctionType functionType) {
+        this.text = text;
+        this.functionIndex = functionIndex;
+        this.function = function;
+        this.functionType = functionType;
+        this.endIndex = -1;
+        this.failureReason = null;
+        if (this.objects != null) {
+            Arrays.fill(this.objects, 0, this.count, null);
+        }
+        this.count = 0;
+    }
+
+    public int getFunctionIndex() {
+        return functionIndex;
+    }
+
+    public Function getFunction() {
+        return function;
+    }
+
+    public FunctionType getFunctionType() {
+        return functionType;
+    }
+
+    /**
+     * Returns the end index of the scanned function or -1 if the function wasn't scanned successfully.
+     *
+     * @return
+     */
+    public int getEndIndex() {
+        return endIndex;
+    }
+
+    public FailureReason getFailureReason() {
+        return failureReason;
+    }
+
+    /**
+     * Sets the result of the successful scan. The function can differ from the found one, for example, CSI is
+     * resolved to a control sequence function.
+     *
+     * @param function
+     * @param endIndex
+     */
+    public void succeed(Function function, int endIndex) {
+        this.function = function;
+        this.endIndex = endIndex;
+    }
+
+    public void fail(FailureReason reason) {
+        this.failureReason = reason;
+        this.endIndex = -1;
+    }
+
+    public void addInt(int value, boolean isDefault) {
+        var i = this.add(INT_VALUE, isDefault);
+        this.ints[i] = value;
+    }
+
+    /**
+     * Adds text value that is located in the text from startIndex to endIndex.
+     *
+     * @param startIndex
+     * @param endIndex
+     */
+    public void addText(int startIndex, int endIndex) {
+        var i = this.add(TEXT_VALUE, false);
+        this.ints[i] = startIndex;
+        this.endIndexes[i] = endIndex;
+    }
+
+    public void addValue(Object value, boolean isDefault) {
+        if (value instanceof Integer) {
+            this.addInt((Integer) value, isDefault);
+            return;
+        }
+        var i = this.add(OBJECT_VALUE, isDefault);
+        if (this.objects == null) {
+            this.objects = new Object[this.kinds.length];
+        }
+        this.objects[i] = value;
+    }
+
+    @Override
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public boolean isDefault(int index) {
+        this.checkIndex(index);
+        return this.defaults[index];
+    }
+
+    @Override
+    public boolean isInt(int index) {
+        this.checkIndex(index);
+        return this.kinds[index] == INT_VALUE;
+    }
+
+    @Override
+    public int getInt(int index) {
+        if (!this.isInt(index)) {
+            throw new IllegalStateException("Argument " + index + " is not an integer");
+        }
+        return this.ints[index];
+    }
+
+    @Override
+    public Object getValue(int index) {
+        this.checkIndex(index);
+        switch (this.kinds[index]) {
+            case INT_VALUE: return this.ints[index];
+            case TEXT_VALUE: return this.text.subSequence(this.ints[index], this.endIndexes[index]).toString();
+            default: return this.objects[index];
+        }
+    }
+
+    private int add(byte kind, boolean isDefault) {
+        if (this.count == this.kinds.length) {
+            var capacity = this.count * 2;
+            this.kinds = Arrays.copyOf(this.kinds, capacity);
+            this.defaults = Arrays.copyOf(this.defaults, capacity);
+            this.ints = Arrays.copyOf(this.ints, capacity);
+            this.endIndexes = Arrays.copyOf(this.endIndexes, capacity);
+            if (this.objects != null) {
+                this.objects = Arrays.copyOf(this.objects, capacity);
+            }
+        }
+        var i = this.count++;
+        this.kinds[i] = kind;
+        this.defaults[i] = isDefault;
+        return i;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= this.count) {
+            throw new IndexOutOfBoundsException("Illegal argument index: " + index);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.impl;
+
+import com.techsenger.ansi4j.core.api.iso6429.ControlFunction;
+
+/**
+ * Function handler that can parse a function without creating objects. It is used when fragments are visited.
+ *
+ * @author Pavel Castornii
+ */
+public interface FunctionScanner {
+
+    /**
+     * Scans the function that starts at the index. The result (the end index and the arguments or the failure
+     * reason) is set to the scan.
+     *
+     * @param text
+     * @param startIndex
+     * @param function
+     * @param scan
+     */
+    void scan(CharSequence text, int startIndex, ControlFunction function, FunctionScan scan);
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event of a function that the parser had to wait for: a function whose end was received with next
+ * chars or a streamed control string. The duration is the time from the moment the function was found to the moment
+ * its end was received or the wait was stopped because of the limits.
+ *
+ * @author Pavel Castornii
+ */
+@Name("com.techsenger.ansi4j.LongFunction")
+@Label("ANSI Long Function")
+@Category("Ansi4j")
+@Description("Function whose end the parser had to wait for")
+@StackTrace(false)
+@Threshold("1 ms")
+final class LongFunctionEvent extends Event {
+
+    @Label("Function")
+    String function;
+
+    /**
+     * For a delayed function it is the number of chars the parser kept, for a streamed one it is the whole length.
+     */
+    @Label("Length")
+    int length;
+
+    @Label("Streamed")
+    boolean streamed;
+
+    @Label("Limit Exceeded")
+    boolean limitExceeded;
+}
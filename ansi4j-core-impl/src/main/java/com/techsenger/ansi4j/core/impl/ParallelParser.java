@@ -0,0 +1,317 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import com.techsenger.ansi4j.core.api.Environment;
+import com.techsenger.ansi4j.core.api.Fragment;
+import com.techsenger.ansi4j.core.api.FragmentType;
+import com.techsenger.ansi4j.core.api.FunctionFragment;
+import com.techsenger.ansi4j.core.api.ParserFactory;
+import com.techsenger.ansi4j.core.api.utils.Characters;
+
+/**
+ * Parses the text by chunks in parallel and merges the results. Chunk boundaries are moved back to ESC (or C1 in
+ * 8-bit environment), so usually every chunk starts with a function. Every chunk is parsed until the first function
+ * whose end isn't in the chunk. If a chunk wasn't parsed to its end, the text is parsed sequentially from that
+ * place until the parser finds a function that was also found in a chunk, after that the fragments of that chunk
+ * are used. Failures and metrics are reported only for the merged result, because some parts of the text are parsed
+ * twice.
+ *
+ * @author Pavel Castornii
+ */
+final class ParallelParser {
+
+    /**
+     * Max number of chars that are scanned back from the chunk end to find the start of a function.
+     */
+    private static final int MAX_BACK_SCAN_LENGTH = 256;
+
+    private final CharSequence text;
+
+    private final int chunkSize;
+
+    private final ParserFactory factory;
+
+    /**
+     * Chunk i is from bounds[i], inclusive, to bounds[i + 1], exclusive.
+     */
+    private int[] bounds;
+
+    /**
+     * Fragments of every chunk. Chunks are parsed in parallel, every chunk sets only its own element.
+     */
+    private List<List<Fragment>> chunkFragments;
+
+    /**
+     * Failures of every chunk that are reported after merging.
+     */
+    private List<List<ChunkParser.Failure>> chunkFailures;
+
+    /**
+     * Index to which the chunk was parsed.
+     */
+    private int[] chunkParsedIndexes;
+
+    ParallelParser(CharSequence text, int chunkSize, ParserFactory factory) {
+        this.text = text;
+        this.chunkSize = chunkSize;
+        this.factory = factory;
+    }
+
+    List<Fragment> parse(ForkJoinPool pool) {
+        this.bounds = this.findChunkBounds();
+        var chunkCount = this.bounds.length - 1;
+        this.chunkFragments = new ArrayList<>(Collections.nCopies(chunkCount, null));
+        this.chunkFailures = new ArrayList<>(Collections.nCopies(chunkCount, null));
+        this.chunkParsedIndexes = new int[chunkCount];
+        if (chunkCount == 1) {
+            this.parseChunk(0);
+        } else {
+            pool.invoke(new ChunkTask(0, chunkCount));
+        }
+        return this.merge();
+    }
+
+    private class ChunkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int fromChunk;
+
+        private final int toChunk;
+
+        ChunkTask(int fromChunk, int toChunk) {
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk == 1) {
+                parseChunk(fromChunk);
+            } else {
+                var middle = (fromChunk + toChunk) >>> 1;
+                invokeAll(new ChunkTask(fromChunk, middle), new ChunkTask(middle, toChunk));
+            }
+        }
+    }
+
+    private int[] findChunkBounds() {
+        var length = this.text.length();
+        var chunkCount = Math.max(1, (int) ((length + (long) chunkSize - 1) / chunkSize));
+        var result = new int[chunkCount + 1];
+        for (var i = 1; i < chunkCount; i++) {
+            result[i] = this.findSafeBoundary(i * chunkSize, result[i - 1]);
+        }
+        result[chunkCount] = length;
+        return result;
+    }
+
+    /**
+     * Returns the index of the last ESC (or C1 in 8-bit environment) near the candidate or the candidate itself.
+     *
+     * @param candidate
+     * @param previousBoundary
+     * @return index that is greater than previous boundary.
+     */
+    private int findSafeBoundary(int candidate, int previousBoundary) {
+        var minIndex = Math.max(previousBoundary + 1, candidate - MAX_BACK_SCAN_LENGTH);
+        for (var i = candidate; i >= minIndex; i--) {
+            if (this.isFunctionStart(this.text.charAt(i))) {
+                return i;
+            }
+        }
+        if (Character.isLowSurrogate(this.text.charAt(candidate)) && candidate - 1 > previousBoundary) {
+            return candidate - 1;
+        }
+        return candidate;
+    }
+
+    private boolean isFunctionStart(char c) {
+        return c == Characters.ESC || (c >= 0x80 && c <= 0x9F && this.factory.getEnvironment() == Environment._8_BIT);
+    }
+
+    private void parseChunk(int chunk) {
+        var event = ParserEvents.beginParseChunk();
+        var startIndex = this.bounds[chunk];
+        var endIndex = this.bounds[chunk + 1];
+        var lastChunk = chunk == this.bounds.length - 2;
+        //ESC at the end can be the first char of a function in the next chunk
+        if (!lastChunk && endIndex > startIndex && this.text.charAt(endIndex - 1) == Characters.ESC) {
+            endIndex--;
+        }
+        var failures = new ArrayList<ChunkParser.Failure>();
+        var parser = new ChunkParser(this.text, startIndex, endIndex, lastChunk, this.factory, failures);
+        var fragments = new ArrayList<Fragment>();
+        Fragment fragment = null;
+        while ((fragment = parser.parse()) != null) {
+            fragments.add(fragment);
+        }
+        this.chunkFragments.set(chunk, fragments);
+        this.chunkFailures.set(chunk, failures);
+        this.chunkParsedIndexes[chunk] = parser.getCurrentIndex();
+        if (event != null) {
+            var textFragmentCount = 0;
+            for (var chunkFragment : fragments) {
+                if (chunkFragment.getType() == FragmentType.TEXT) {
+                    textFragmentCount++;
+                }
+            }
+            ParserEvents.commitParseChunk(event, "parallel", parser.getCurrentIndex() - startIndex,
+                    textFragmentCount, fragments.size() - textFragmentCount);
+        }
+    }
+
+    private List<Fragment> merge() {
+        var result = new ArrayList<Fragment>();
+        var chunk = 0;
+        var fragmentIndex = 0;
+        //index from which the fragments of the chunk are used
+        var usedIndex = 0;
+        while (true) {
+            var fragments = this.chunkFragments.get(chunk);
+            for (var i = fragmentIndex; i < fragments.size(); i++) {
+                this.addFragment(result, fragments.get(i));
+            }
+            var parsedIndex = this.chunkParsedIndexes[chunk];
+            if (parsedIndex == this.bounds[chunk + 1]) {
+                this.reportFailures(this.chunkFailures.get(chunk), usedIndex, Integer.MAX_VALUE);
+                chunk++;
+                fragmentIndex = 0;
+                if (chunk == this.chunkFragments.size()) {
+                    this.reportMetrics(result);
+                    return result;
+                }
+                usedIndex = this.bounds[chunk];
+                continue;
+            }
+            this.reportFailures(this.chunkFailures.get(chunk), usedIndex, parsedIndex);
+            //there is a function that crosses the chunk end
+            var failures = new ArrayList<ChunkParser.Failure>();
+            var parser = new ChunkParser(this.text, parsedIndex, this.text.length(), true, this.factory, failures);
+            var chunkEndIndex = this.bounds[chunk + 1];
+            var functionFound = false;
+            Fragment fragment = null;
+            while ((fragment = parser.parse()) != null) {
+                if (fragment.getType() == FragmentType.FUNCTION && fragment.getStartIndex() >= chunkEndIndex) {
+                    var nextChunk = this.findChunk(fragment.getStartIndex());
+                    var index = this.findFunction(this.chunkFragments.get(nextChunk), fragment.getStartIndex());
+                    if (index != -1) {
+                        chunk = nextChunk;
+                        fragmentIndex = index;
+                        usedIndex = fragment.getStartIndex();
+                        functionFound = true;
+                        break;
+                    }
+                }
+                this.addFragment(result, fragment);
+            }
+            if (!functionFound) {
+                this.reportFailures(failures, 0, Integer.MAX_VALUE);
+                this.reportMetrics(result);
+                return result;
+            }
+            this.reportFailures(failures, 0, usedIndex);
+        }
+    }
+
+    /**
+     * Reports the failures whose indexes are in the range.
+     *
+     * @param failures
+     * @param startIndex inclusive.
+     * @param endIndex exclusive.
+     */
+    private void reportFailures(List<ChunkParser.Failure> failures, int startIndex, int endIndex) {
+        for (var failure : failures) {
+            if (failure.getIndex() >= startIndex && failure.getIndex() < endIndex) {
+                failure.report(this.factory.getFailureListener());
+            }
+        }
+    }
+
+    private void reportMetrics(List<Fragment> fragments) {
+        var metrics = this.factory.getMetrics();
+        if (metrics == null) {
+            return;
+        }
+        metrics.onCharsParsed(this.text.length());
+        for (var fragment : fragments) {
+            if (fragment.getType() == FragmentType.TEXT) {
+                metrics.onText();
+            } else {
+                metrics.onFunction(((FunctionFragment) fragment).getFunction());
+            }
+        }
+    }
+
+    /**
+     * Adds fragment to the list. As string parser never returns two adjacent text fragments one after another, such
+     * fragments are replaced with one fragment. Text fragments between which a function was dropped are not adjacent.
+     *
+     * @param fragments
+     * @param fragment
+     */
+    private void addFragment(List<Fragment> fragments, Fragment fragment) {
+        var lastIndex = fragments.size() - 1;
+        if (fragment.getType() == FragmentType.TEXT && lastIndex >= 0
+                && fragments.get(lastIndex).getType() == FragmentType.TEXT
+                && fragments.get(lastIndex).getEndIndex() == fragment.getStartIndex()) {
+            var startIndex = fragments.get(lastIndex).getStartIndex();
+            var textFragment = this.factory.getTextHandler()
+                    .handle(this.text, startIndex, fragment.getEndIndex(), startIndex).getFragment().get();
+            fragments.set(lastIndex, textFragment);
+        } else {
+            fragments.add(fragment);
+        }
+    }
+
+    private int findChunk(int index) {
+        var i = Arrays.binarySearch(this.bounds, index);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    /**
+     * Returns the index of the function fragment that starts at the index or -1.
+     *
+     * @param fragments
+     * @param startIndex
+     * @return
+     */
+    private int findFunction(List<Fragment> fragments, int startIndex) {
+        var low = 0;
+        var high = fragments.size() - 1;
+        while (low <= high) {
+            var middle = (low + high) >>> 1;
+            var fragment = fragments.get(middle);
+            if (fragment.getStartIndex() < startIndex) {
+                low = middle + 1;
+            } else if (fragment.getStartIndex() > startIndex) {
+                high = middle - 1;
+            } else {
+                return fragment.getType() == FragmentType.FUNCTION ? middle : -1;
+            }
+        }
+        return -1;
+    }
+}
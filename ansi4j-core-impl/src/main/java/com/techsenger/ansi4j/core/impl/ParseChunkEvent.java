@@ -0,0 +1,52 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event of parsing a part of the text that was given to the parser at once, for example, a chunk of
+ * parallel parsing or the bytes fed to a push parser.
+ *
+ * @author Pavel Castornii
+ */
+@Name("com.techsenger.ansi4j.ParseChunk")
+@Label("ANSI Parse Chunk")
+@Category("Ansi4j")
+@Description("Parsing of a part of the text that was given to the parser at once")
+@StackTrace(false)
+@Threshold("1 ms")
+final class ParseChunkEvent extends Event {
+
+    @Label("Parser")
+    String parser;
+
+    @Label("Chars")
+    int chars;
+
+    @Label("Text Fragments")
+    int textFragments;
+
+    @Label("Function Fragments")
+    int functionFragments;
+}
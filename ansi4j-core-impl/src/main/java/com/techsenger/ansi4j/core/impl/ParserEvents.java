@@ -0,0 +1,158 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.impl;
+
+import com.techsenger.ansi4j.core.api.function.Function;
+import jdk.jfr.EventType;
+
+/**
+ * Creates and commits flight recorder events of the parsers. Events extend jdk.jfr.Event, whose superclass javac
+ * can't find when it compiles with release 14, so the events and this class are compiled separately (see pom.xml)
+ * and the other classes of the module work with events only through this class. Events are created only when they
+ * are enabled, so parsing without a recording doesn't allocate them. The jdk.jfr module is optional: all classes
+ * that use it are loaded only if it is present, otherwise no events are created.
+ *
+ * @author Pavel Castornii
+ */
+final class ParserEvents {
+
+    private static final boolean JFR_PRESENT = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    /**
+     * Works with the classes of jdk.jfr. It is loaded only when the module is present.
+     */
+    private static final class Recorder {
+
+        private static final EventType PARSE_CHUNK_TYPE = EventType.getEventType(ParseChunkEvent.class);
+
+        private static final EventType LONG_FUNCTION_TYPE = EventType.getEventType(LongFunctionEvent.class);
+
+        static Object beginParseChunk() {
+            if (!PARSE_CHUNK_TYPE.isEnabled()) {
+                return null;
+            }
+            var event = new ParseChunkEvent();
+            event.begin();
+            return event;
+        }
+
+        static void commitParseChunk(Object event, String parser, int chars, int textFragments,
+                int functionFragments) {
+            var chunkEvent = (ParseChunkEvent) event;
+            chunkEvent.end();
+            if (chunkEvent.shouldCommit()) {
+                chunkEvent.parser = parser;
+                chunkEvent.chars = chars;
+                chunkEvent.textFragments = textFragments;
+                chunkEvent.functionFragments = functionFragments;
+                chunkEvent.commit();
+            }
+        }
+
+        static Object beginLongFunction(Function function, boolean streamed) {
+            if (!LONG_FUNCTION_TYPE.isEnabled()) {
+                return null;
+            }
+            var event = new LongFunctionEvent();
+            event.begin();
+            event.function = String.valueOf(function);
+            event.streamed = streamed;
+            return event;
+        }
+
+        static void updateLongFunction(Object event, int length, boolean limitExceeded) {
+            var functionEvent = (LongFunctionEvent) event;
+            functionEvent.length = length;
+            functionEvent.limitExceeded = limitExceeded;
+        }
+
+        static void commitLongFunction(Object event) {
+            var functionEvent = (LongFunctionEvent) event;
+            functionEvent.end();
+            if (functionEvent.shouldCommit()) {
+                functionEvent.commit();
+            }
+        }
+
+        private Recorder() {
+            //empty
+        }
+    }
+
+    /**
+     * Begins {@link ParseChunkEvent}.
+     *
+     * @return event or null if the event is not enabled or jdk.jfr is absent.
+     */
+    static Object beginParseChunk() {
+        if (!JFR_PRESENT) {
+            return null;
+        }
+        return Recorder.beginParseChunk();
+    }
+
+    /**
+     * Ends {@link ParseChunkEvent} and commits it if it passes the settings of the recording.
+     *
+     * @param event not null event.
+     * @param parser
+     * @param chars
+     * @param textFragments
+     * @param functionFragments
+     */
+    static void commitParseChunk(Object event, String parser, int chars, int textFragments, int functionFragments) {
+        Recorder.commitParseChunk(event, parser, chars, textFragments, functionFragments);
+    }
+
+    /**
+     * Begins {@link LongFunctionEvent}.
+     *
+     * @param function
+     * @param streamed
+     * @return event or null if the event is not enabled or jdk.jfr is absent.
+     */
+    static Object beginLongFunction(Function function, boolean streamed) {
+        if (!JFR_PRESENT) {
+            return null;
+        }
+        return Recorder.beginLongFunction(function, streamed);
+    }
+
+    /**
+     * Updates {@link LongFunctionEvent}.
+     *
+     * @param event not null event.
+     * @param length
+     * @param limitExceeded
+     */
+    static void updateLongFunction(Object event, int length, boolean limitExceeded) {
+        Recorder.updateLongFunction(event, length, limitExceeded);
+    }
+
+    /**
+     * Ends {@link LongFunctionEvent} and commits it if it passes the settings of the recording.
+     *
+     * @param event not null event.
+     */
+    static void commitLongFunction(Object event) {
+        Recorder.commitLongFunction(event);
+    }
+
+    private ParserEvents() {
+        //empty
+    }
+}
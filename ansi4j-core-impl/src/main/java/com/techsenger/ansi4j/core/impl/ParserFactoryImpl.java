@@ -16,16 +16,41 @@
 
 package com.techsenger.ansi4j.core.impl;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import com.techsenger.ansi4j.core.api.ByteParser;
+import com.techsenger.ansi4j.core.api.ControlStringConsumer;
 import com.techsenger.ansi4j.core.api.Environment;
+import com.techsenger.ansi4j.core.api.FailureListener;
+import com.techsenger.ansi4j.core.api.FailureReason;
+import com.techsenger.ansi4j.core.api.FileParser;
+import com.techsenger.ansi4j.core.api.Fragment;
+import com.techsenger.ansi4j.core.api.FragmentVisitor;
 import com.techsenger.ansi4j.core.api.FunctionFinder;
+import com.techsenger.ansi4j.core.api.IgnoredFunctionAction;
+import com.techsenger.ansi4j.core.api.Parser;
 import com.techsenger.ansi4j.core.api.ParserFactory;
+import com.techsenger.ansi4j.core.api.ParserMetrics;
+import com.techsenger.ansi4j.core.api.PushParser;
 import com.techsenger.ansi4j.core.api.StreamParser;
 import com.techsenger.ansi4j.core.api.StringParser;
+import com.techsenger.ansi4j.core.api.function.Function;
 import com.techsenger.ansi4j.core.api.function.FunctionType;
 import com.techsenger.ansi4j.core.api.FunctionHandler;
 import com.techsenger.ansi4j.core.api.TextHandler;
@@ -47,12 +72,53 @@ public final class ParserFactoryImpl implements ParserFactory {
 
     private final FunctionFinder functionFinder;
 
-    private final Map<FunctionType, FunctionHandler> functionHandlersByType = new HashMap<>();
+    private final Map<FunctionType, FunctionHandler> functionHandlersByType;
+
+    /**
+     * Handlers of {@link ControlFunctionType}s by ordinal. Handlers of other types are found in
+     * {@link #functionHandlersByType}.
+     */
+    private final FunctionHandler[] controlFunctionHandlers = new FunctionHandler[ControlFunctionType.values().length];
 
     private final TextHandler textHandler;
 
+    private final CodingErrorAction codingErrorAction;
+
+    private final int maxFunctionLength;
+
+    private final int maxArgumentCount;
+
+    private final int maxBufferSize;
+
+    /**
+     * Interesting functions or null if all functions are interesting.
+     */
+    private final Set<Function> interestingFunctions;
+
+    private final IgnoredFunctionAction ignoredFunctionAction;
+
+    private final FailureCounter failureCounter;
+
+    private final ParserMetrics metrics;
+
     public ParserFactoryImpl(ParserFactoryConfig config) {
         this.environment = config.getEnvironment();
+        this.codingErrorAction = config.getCodingErrorAction();
+        this.maxFunctionLength = config.getMaxFunctionLength();
+        this.maxArgumentCount = config.getMaxArgumentCount();
+        this.maxBufferSize = config.getMaxBufferSize();
+        if (config.getInterestingFunctions() != null) {
+            this.interestingFunctions = Collections.unmodifiableSet(new HashSet<>(config.getInterestingFunctions()));
+        } else {
+            this.interestingFunctions = null;
+        }
+        this.ignoredFunctionAction = config.getIgnoredFunctionAction();
+        this.metrics = config.getMetrics();
+        if (config.getFailureListener() != null) {
+            this.failureCounter = new FailureCounter(config.getFailureListener(), this.metrics);
+        } else {
+            this.failureCounter = new FailureCounter(new RateLimitedFailureLogger(), this.metrics);
+        }
         if (config.getFunctionFinder() != null) {
             this.functionFinder = config.getFunctionFinder();
         } else {
@@ -60,18 +126,25 @@ public final class ParserFactoryImpl implements ParserFactory {
         }
         this.functionFinder.initialize(this.environment);
 
+        var handlersByType = new HashMap<FunctionType, FunctionHandler>();
         if (config.getFunctionHandlers() != null) {
             for (var handler : config.getFunctionHandlers()) {
-                this.functionHandlersByType.put(handler.getFunctionType(), handler);
+                handlersByType.put(handler.getFunctionType(), handler);
             }
         }
         for (var type : config.getFunctionTypes()) {
-            if (!this.functionHandlersByType.containsKey(type)) {
+            if (!handlersByType.containsKey(type)) {
                 var handler = createFunctionHandler(type);
-                this.functionHandlersByType.put(handler.getFunctionType(), handler);
+                handlersByType.put(handler.getFunctionType(), handler);
             }
         }
-        this.functionHandlersByType.values().forEach(p -> p.initialize(this.environment));
+        handlersByType.values().forEach(p -> p.initialize(this.environment));
+        for (var entry : handlersByType.entrySet()) {
+            if (entry.getKey() instanceof ControlFunctionType) {
+                this.controlFunctionHandlers[((ControlFunctionType) entry.getKey()).ordinal()] = entry.getValue();
+            }
+        }
+        this.functionHandlersByType = Collections.unmodifiableMap(handlersByType);
 
         if (config.getTextHandler() != null) {
             this.textHandler = config.getTextHandler();
@@ -88,7 +161,15 @@ public final class ParserFactoryImpl implements ParserFactory {
 
     @Override
     public Map<FunctionType, FunctionHandler> getFunctionHandlersByType() {
-        return Collections.unmodifiableMap(this.functionHandlersByType);
+        return this.functionHandlersByType;
+    }
+
+    @Override
+    public FunctionHandler getFunctionHandler(FunctionType type) {
+        if (type instanceof ControlFunctionType) {
+            return this.controlFunctionHandlers[((ControlFunctionType) type).ordinal()];
+        }
+        return this.functionHandlersByType.get(type);
     }
 
     @Override
@@ -97,15 +178,131 @@ public final class ParserFactoryImpl implements ParserFactory {
     }
 
     @Override
-    public StringParser createParser(String text) {
+    public StringParser createParser(CharSequence text) {
         if (text == null) {
             throw new IllegalArgumentException("No text provided");
         }
         return new StringParserImpl(text, this);
     }
 
+    @Override
+    public void visit(CharSequence text, FragmentVisitor visitor) {
+        if (text == null) {
+            throw new IllegalArgumentException("No text provided");
+        }
+        if (visitor == null) {
+            throw new IllegalArgumentException("No visitor provided");
+        }
+        new VisitingParser(this).visit(text, visitor);
+    }
+
+    @Override
+    public void strip(CharSequence text, Appendable output) throws IOException {
+        if (text == null) {
+            throw new IllegalArgumentException("No text provided");
+        }
+        if (output == null) {
+            throw new IllegalArgumentException("No output provided");
+        }
+        new TextStripper(this).strip(text, output);
+    }
+
+    @Override
+    public void strip(InputStream stream, Charset encoding, Writer writer) throws IOException {
+        if (stream == null) {
+            throw new IllegalArgumentException("No stream provided");
+        }
+        if (encoding == null) {
+            throw new IllegalArgumentException("No encoding provided");
+        }
+        if (writer == null) {
+            throw new IllegalArgumentException("No writer provided");
+        }
+        new TextStripper(this).strip(stream, encoding, writer);
+    }
+
+    @Override
+    public int visibleWidth(CharSequence text) {
+        if (text == null) {
+            throw new IllegalArgumentException("No text provided");
+        }
+        return new TextMeasurer(this).measure(text, 0);
+    }
+
+    @Override
+    public int visibleLength(CharSequence text, int tabSize) {
+        if (text == null) {
+            throw new IllegalArgumentException("No text provided");
+        }
+        if (tabSize <= 0) {
+            throw new IllegalArgumentException("Illegal value of tab size: " + tabSize);
+        }
+        return new TextMeasurer(this).measure(text, tabSize);
+    }
+
+    @Override
+    public List<Fragment> parseParallel(CharSequence text, ForkJoinPool pool, int chunkSize) {
+        if (text == null) {
+            throw new IllegalArgumentException("No text provided");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("No pool provided");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Illegal value of chunk size: " + chunkSize);
+        }
+        return new ParallelParser(text, chunkSize, this).parse(pool);
+    }
+
+    @Override
+    public ByteParser createParser(ByteBuffer buffer, Charset encoding) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("No buffer provided");
+        }
+        this.checkByteEncoding(encoding);
+        return new ByteParserImpl(buffer, encoding, this);
+    }
+
+    @Override
+    public FileParser createParser(Path file, Charset encoding, int windowSize) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("No file provided");
+        }
+        this.checkByteEncoding(encoding);
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Illegal value of window size: " + windowSize);
+        }
+        return new FileParserImpl(file, encoding, windowSize, this);
+    }
+
+    @Override
+    public PushParser createParser(Consumer<Fragment> consumer, Charset encoding, int bufferSize) {
+        return this.createParser(consumer, encoding, bufferSize, (ControlStringConsumer) null);
+    }
+
+    @Override
+    public PushParser createParser(Consumer<Fragment> consumer, Charset encoding, int bufferSize,
+            ControlStringConsumer controlStringConsumer) {
+        if (consumer == null) {
+            throw new IllegalArgumentException("No consumer provided");
+        }
+        if (encoding == null) {
+            throw new IllegalArgumentException("No encoding provided");
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Illegal value of buffer size: " + bufferSize);
+        }
+        return new PushParserImpl(consumer, encoding, bufferSize, controlStringConsumer, this);
+    }
+
     @Override
     public StreamParser createParser(InputStream stream, Charset encoding, int bufferSize) {
+        return this.createParser(stream, encoding, bufferSize, null);
+    }
+
+    @Override
+    public StreamParser createParser(InputStream stream, Charset encoding, int bufferSize,
+            ControlStringConsumer controlStringConsumer) {
         if (stream == null) {
             throw new IllegalArgumentException("No stream provided");
         }
@@ -115,7 +312,21 @@ public final class ParserFactoryImpl implements ParserFactory {
         if (bufferSize <= 0) {
             throw new IllegalArgumentException("Illegal value of buffer size: " + bufferSize);
         }
-        return new StreamParserImpl(stream, encoding, bufferSize, this);
+        return new StreamParserImpl(stream, encoding, bufferSize, controlStringConsumer, this);
+    }
+
+    @Override
+    public Flow.Publisher<Fragment> createPublisher(Parser parser, Executor executor, int batchSize) {
+        if (parser == null) {
+            throw new IllegalArgumentException("No parser provided");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("No executor provided");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Illegal value of batch size: " + batchSize);
+        }
+        return new FragmentPublisher(parser, executor, batchSize);
     }
 
     @Override
@@ -123,6 +334,59 @@ public final class ParserFactoryImpl implements ParserFactory {
         return this.environment;
     }
 
+    @Override
+    public CodingErrorAction getCodingErrorAction() {
+        return this.codingErrorAction;
+    }
+
+    @Override
+    public int getMaxFunctionLength() {
+        return this.maxFunctionLength;
+    }
+
+    @Override
+    public int getMaxArgumentCount() {
+        return this.maxArgumentCount;
+    }
+
+    @Override
+    public int getMaxBufferSize() {
+        return this.maxBufferSize;
+    }
+
+    @Override
+    public ParserMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    @Override
+    public FailureListener getFailureListener() {
+        return this.failureCounter;
+    }
+
+    @Override
+    public long getFailureCount(FailureReason reason) {
+        if (reason == null) {
+            throw new IllegalArgumentException("No reason provided");
+        }
+        return this.failureCounter.getCount(reason);
+    }
+
+    @Override
+    public Set<Function> getInterestingFunctions() {
+        return this.interestingFunctions;
+    }
+
+    @Override
+    public boolean isInterestedIn(Function function) {
+        return this.interestingFunctions == null || this.interestingFunctions.contains(function);
+    }
+
+    @Override
+    public IgnoredFunctionAction getIgnoredFunctionAction() {
+        return this.ignoredFunctionAction;
+    }
+
     private FunctionHandler createFunctionHandler(ControlFunctionType type) {
         switch (type) {
             case C0_SET: return new C0ControlFunctionHandler();
@@ -134,4 +398,22 @@ public final class ParserFactoryImpl implements ParserFactory {
                 throw new AssertionError();
         }
     }
+
+    /**
+     * Checks the encoding of the parsers that work with bytes without decoding them.
+     *
+     * @param encoding
+     */
+    private void checkByteEncoding(Charset encoding) {
+        if (encoding == null) {
+            throw new IllegalArgumentException("No encoding provided");
+        }
+        if (encoding.equals(StandardCharsets.UTF_8)) {
+            if (this.environment != Environment._7_BIT) {
+                throw new IllegalArgumentException("UTF-8 bytes can be parsed only in 7-bit environment");
+            }
+        } else if (!encoding.equals(StandardCharsets.ISO_8859_1) && !encoding.equals(StandardCharsets.US_ASCII)) {
+            throw new IllegalArgumentException("Unsupported encoding: " + encoding);
+        }
+    }
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.util.function.Consumer;
+import com.techsenger.ansi4j.core.api.FailureReason;
+import com.techsenger.ansi4j.core.api.ControlStringConsumer;
+import com.techsenger.ansi4j.core.api.Fragment;
+import com.techsenger.ansi4j.core.api.FragmentType;
+import com.techsenger.ansi4j.core.api.ParserFactory;
+import com.techsenger.ansi4j.core.api.PushParser;
+
+/**
+ *
+ * @author Pavel Castornii
+ */
+public class PushParserImpl extends AbstractBufferedParser implements PushParser {
+
+    /**
+     * Max number of bytes in one character in supported charsets.
+     */
+    private static final int MAX_BYTES_PER_CHAR = 16;
+
+    private final Consumer<Fragment> consumer;
+
+    /**
+     * Bytes of an incomplete character from the end of the previous chunk. The buffer is in write mode.
+     */
+    private final ByteBuffer pendingBytes = ByteBuffer.allocate(MAX_BYTES_PER_CHAR);
+
+    private boolean inputEnded = false;
+
+    public PushParserImpl(Consumer<Fragment> consumer, Charset encoding, int bufferSize,
+            ControlStringConsumer controlStringConsumer, ParserFactory factory) {
+        super(encoding, bufferSize, controlStringConsumer, factory);
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void feed(char[] chars, int offset, int length) {
+        this.checkInputNotEnded();
+        this.prepareCharBuffer(length).put(chars, offset, length);
+        this.updateText(false);
+        this.parseText();
+    }
+
+    @Override
+    public void feed(ByteBuffer bytes) throws CharacterCodingException {
+        this.checkInputNotEnded();
+        this.prepareCharBuffer(0);
+        //completing the character from the previous chunk byte by byte
+        while (pendingBytes.position() > 0 && bytes.hasRemaining()) {
+            pendingBytes.put(bytes.get());
+            pendingBytes.flip();
+            this.decode(pendingBytes, false);
+            pendingBytes.compact();
+        }
+        this.decode(bytes, false);
+        if (bytes.hasRemaining()) {
+            pendingBytes.put(bytes);
+        }
+        this.updateText(false);
+        this.parseText();
+    }
+
+    @Override
+    public void endOfInput() throws CharacterCodingException {
+        this.checkInputNotEnded();
+        this.inputEnded = true;
+        this.prepareCharBuffer(0);
+        pendingBytes.flip();
+        this.decode(pendingBytes, true);
+        pendingBytes.clear();
+        this.flushDecoder();
+        this.updateText(true);
+        this.parseText();
+    }
+
+    /**
+     * Parses next fragment of the received text. Fragments are detached from the char buffer.
+     *
+     * @return fragment or null if all received text has been parsed.
+     */
+    @Override
+    public Fragment parse() {
+        try {
+            var fragment = this.doParse();
+            if (fragment != null) {
+                return this.detach(fragment);
+            }
+        } catch (Exception ex) {
+            this.reportParserError(ex);
+        }
+        return null;
+    }
+
+    @Override
+    protected boolean delayFunctionParsing(FailureReason reason) {
+        return !this.inputEnded && super.delayFunctionParsing(reason);
+    }
+
+    private void parseText() {
+        var event = ParserEvents.beginParseChunk();
+        var startIndex = this.getCurrentIndex();
+        var textFragmentCount = 0;
+        var functionFragmentCount = 0;
+        Fragment fragment = null;
+        while ((fragment = this.parse()) != null) {
+            if (fragment.getType() == FragmentType.TEXT) {
+                textFragmentCount++;
+            } else {
+                functionFragmentCount++;
+            }
+            this.consumer.accept(fragment);
+        }
+        if (event != null) {
+            ParserEvents.commitParseChunk(event, "push", this.getCurrentIndex() - startIndex, textFragmentCount,
+                    functionFragmentCount);
+        }
+    }
+
+    private void checkInputNotEnded() {
+        if (this.inputEnded) {
+            throw new IllegalStateException("End of input has been reached");
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.techsenger.ansi4j.core.api.FailureListener;
+import com.techsenger.ansi4j.core.api.FailureReason;
+import com.techsenger.ansi4j.core.api.function.Function;
+
+/**
+ * Default failure listener. It logs not more than {@link #maxMessages} failures per period, the other failures are
+ * only counted and their number is logged when the next period starts.
+ *
+ * @author Pavel Castornii
+ */
+class RateLimitedFailureLogger implements FailureListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitedFailureLogger.class);
+
+    private static final int DEFAULT_MAX_MESSAGES = 10;
+
+    private static final long DEFAULT_PERIOD = TimeUnit.MINUTES.toNanos(1);
+
+    private final int maxMessages;
+
+    /**
+     * Period in nanoseconds.
+     */
+    private final long period;
+
+    private final AtomicLong periodStart = new AtomicLong(System.nanoTime());
+
+    private final AtomicInteger messageCount = new AtomicInteger();
+
+    private final LongAdder suppressedCount = new LongAdder();
+
+    RateLimitedFailureLogger() {
+        this(DEFAULT_MAX_MESSAGES, DEFAULT_PERIOD);
+    }
+
+    RateLimitedFailureLogger(int maxMessages, long period) {
+        this.maxMessages = maxMessages;
+        this.period = period;
+    }
+
+    @Override
+    public void onFunctionFailure(Function function, int index, FailureReason reason) {
+        if (logger.isWarnEnabled() && this.tryLog()) {
+            logger.warn("Couldn't parse function={} at index={}. Reason is {}", function, index, reason);
+        }
+    }
+
+    @Override
+    public void onParserError(Exception ex) {
+        if (logger.isErrorEnabled() && this.tryLog()) {
+            logger.error("Error parsing text", ex);
+        }
+    }
+
+    /**
+     * Checks if one more message can be logged in the current period. When the period is over, the number of
+     * suppressed messages is logged.
+     *
+     * @return
+     */
+    boolean tryLog() {
+        var start = this.periodStart.get();
+        var now = System.nanoTime();
+        if (now - start >= this.period && this.periodStart.compareAndSet(start, now)) {
+            this.messageCount.set(0);
+            var suppressed = this.suppressedCount.sumThenReset();
+            if (suppressed > 0) {
+                logger.warn("{} parsing failures were not logged in the last {} ms", suppressed,
+                        TimeUnit.NANOSECONDS.toMillis(now - start));
+            }
+        }
+        //no increment after the limit is reached, so that threads don't contend for the counter
+        if (this.messageCount.get() >= this.maxMessages || this.messageCount.incrementAndGet() > this.maxMessages) {
+            this.suppressedCount.increment();
+            return false;
+        }
+        return true;
+    }
+
+    long getSuppressedCount() {
+        return this.suppressedCount.sum();
+    }
+}
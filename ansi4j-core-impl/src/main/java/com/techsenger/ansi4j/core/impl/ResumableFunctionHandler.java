@@ -0,0 +1,55 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.techsenger.ansi4j.core.impl;
+
+import com.techsenger.ansi4j.core.api.FunctionHandler;
+import com.techsenger.ansi4j.core.api.FunctionHandlerResult;
+import com.techsenger.ansi4j.core.api.iso6429.ControlFunction;
+
+/**
+ * Function handler that can continue handling of a function whose end wasn't found in the previous attempt. It is
+ * used by the parsers that receive text by portions, so that only the new part of a long function is scanned.
+ *
+ * @author Pavel Castornii
+ */
+public interface ResumableFunctionHandler extends FunctionHandler {
+
+    /**
+     * Handles the function in the same way as {@link #handle(CharSequence, int, ControlFunction, int)}, but the
+     * text before scannedIndex is known not to contain the end of the function.
+     *
+     * @param text
+     * @param startIndex
+     * @param function
+     * @param currentIndex
+     * @param scannedIndex the length of the text in the previous attempt that failed with
+     *      {@link com.techsenger.ansi4j.core.api.FunctionFailureReason#NO_END_OF_FUNCTION}.
+     * @return
+     */
+    FunctionHandlerResult handle(CharSequence text, int startIndex, ControlFunction function, int currentIndex,
+            int scannedIndex);
+
+    /**
+     * Finds the end of the function whose beginning isn't in the text, because the function exceeded the limits
+     * before its end was received. The chars from fromIndex are known to be a part of the function.
+     *
+     * @param text
+     * @param fromIndex
+     * @param function
+     * @return the index after the end of the function or -1 if the text doesn't contain it.
+     */
+    int findEnd(CharSequence text, int fromIndex, ControlFunction function);
+}
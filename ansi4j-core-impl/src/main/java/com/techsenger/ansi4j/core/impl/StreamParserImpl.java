@@ -16,18 +16,13 @@
 
 package com.techsenger.ansi4j.core.impl;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.CharBuffer;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.techsenger.ansi4j.core.api.ControlStringConsumer;
 import com.techsenger.ansi4j.core.api.FailureReason;
 import com.techsenger.ansi4j.core.api.Fragment;
-import com.techsenger.ansi4j.core.api.FunctionFailureReason;
 import com.techsenger.ansi4j.core.api.ParserFactory;
 import com.techsenger.ansi4j.core.api.StreamParser;
 
@@ -35,38 +30,38 @@ import com.techsenger.ansi4j.core.api.StreamParser;
  *
  * @author Pavel Castornii
  */
-public class StreamParserImpl extends AbstractParser implements StreamParser {
+public class StreamParserImpl extends AbstractBufferedParser implements StreamParser {
 
-    private static final Logger logger = LoggerFactory.getLogger(StreamParserImpl.class);
+    /**
+     * Byte buffer must always be able to keep an incomplete multi-byte character.
+     */
+    private static final int MIN_BYTE_BUFFER_SIZE = 16;
 
     private final InputStream stream;
 
-    private final InputStreamReader inputStreamReader;
-
-    private final BufferedReader bufferedReader;
-
-    private final Charset encoding;
-
-    private final int bufferSize;
-
-    private final CharBuffer buffer;
+    /**
+     * Bytes that have been read, but haven't been decoded yet. Between reads the buffer is in read mode.
+     */
+    private final ByteBuffer byteBuffer;
 
-    private final ParserFactory factory;
+    /**
+     * Max number of chars decoded per read. It is never less than two, so that a surrogate pair can be decoded.
+     */
+    private final int charWindow;
 
     /**
-     * Surrogate that doesn't have pair.
+     * If the last read reached the end of the stream. At the end of the stream a function without end is text, but
+     * the stream can provide data again.
      */
-    private Character highSurrogate = null;
+    private boolean endOfStream = false;
 
-    public StreamParserImpl(InputStream stream, Charset encoding, int bufferSize, ParserFactory factory) {
-        super("", factory);
+    public StreamParserImpl(InputStream stream, Charset encoding, int bufferSize,
+            ControlStringConsumer controlStringConsumer, ParserFactory factory) {
+        super(encoding, Math.max(bufferSize, 2), controlStringConsumer, factory);
         this.stream = stream;
-        this.encoding = encoding;
-        this.bufferSize = bufferSize;
-        this.buffer = CharBuffer.allocate(bufferSize);
-        this.factory = factory;
-        inputStreamReader = new InputStreamReader(stream, StandardCharsets.UTF_8);
-        bufferedReader = new BufferedReader(inputStreamReader);
+        this.byteBuffer = ByteBuffer.allocate(Math.max(bufferSize, MIN_BYTE_BUFFER_SIZE));
+        this.byteBuffer.flip();
+        this.charWindow = Math.max(bufferSize, 2);
     }
 
     @Override
@@ -75,64 +70,74 @@ public class StreamParserImpl extends AbstractParser implements StreamParser {
             //there can text, saved function result etc
             var fragment = this.doParse();
             if (fragment != null) {
-                return fragment;
+                return this.detach(fragment);
             }
             while (true) {
                 var count = this.readText();
+                //at the end of the stream the delayed function and the text after it are parsed again
+                fragment = this.doParse();
+                if (fragment != null) {
+                    return this.detach(fragment);
+                }
                 if (count == -1) {
                     return null;
-                } else {
-                    fragment = this.doParse();
-                    if (fragment != null) {
-                        return fragment;
-                    }
                 }
             }
         } catch (Exception ex) {
-            logger.error("Error parsing text", ex);
+            this.reportParserError(ex);
             return null;
         }
     }
 
     @Override
-    public void close() throws IOException {
-        if (this.bufferedReader != null) {
-            this.bufferedReader.close();
-        }
-        if (this.inputStreamReader != null) {
-            this.inputStreamReader.close();
-        }
+    protected boolean delayFunctionParsing(FailureReason reason) {
+        return !this.endOfStream && super.delayFunctionParsing(reason);
     }
 
     @Override
-    protected boolean delayFunctionParsing(FailureReason reason) {
-        return reason == FunctionFailureReason.NO_END_OF_FUNCTION;
+    public void close() throws IOException {
+        this.stream.close();
     }
 
-    private int readText() {
-        try {
-            int count = bufferedReader.read(buffer);
-            if (count != -1) {
-                buffer.flip();
-                //we can have high surrogate without low one
-                var readString = buffer.toString();
-                buffer.clear();
-                if (highSurrogate != null) {
-                    readString = highSurrogate + readString;
-                    highSurrogate = null;
-                }
-                var lastChar = readString.charAt(readString.length() - 1);
-                if (Character.isHighSurrogate(lastChar)) {
-                    readString = readString.substring(0, readString.length() - 1);
-                    highSurrogate = lastChar;
-                }
-                this.setText(getText() + readString);
+    /**
+     * Decodes the next portion of the stream, not more than {@link #charWindow} chars. Bytes are read from the stream
+     * only when the decoder needs them, and the method blocks only if no chars have been decoded.
+     *
+     * @return number of chars added to the text or -1 if the end of the stream is reached and there are no
+     * chars to add.
+     */
+    private int readText() throws IOException {
+        var charBuffer = this.prepareCharBuffer(charWindow);
+        var position = charBuffer.position();
+        charBuffer.limit(position + charWindow);
+        var endOfInput = false;
+        while (true) {
+            var result = this.getDecoder().decode(byteBuffer, charBuffer, endOfInput);
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (endOfInput || result.isOverflow()) {
+                break;
+            }
+            //we don't block if there are decoded chars
+            if (charBuffer.position() > position && stream.available() <= 0) {
+                break;
             }
-            return count;
-        } catch (IOException ex) {
-            logger.error("Error reading stream", ex);
-            return -1;
+            //decoder needs more bytes
+            byteBuffer.compact();
+            var count = stream.read(byteBuffer.array(), byteBuffer.position(), byteBuffer.remaining());
+            if (count > 0) {
+                byteBuffer.position(byteBuffer.position() + count);
+            }
+            byteBuffer.flip();
+            endOfInput = count == -1;
+        }
+        charBuffer.limit(charBuffer.capacity());
+        this.endOfStream = endOfInput;
+        if (endOfInput) {
+            //stream can provide data again, so decoder must be ready for it
+            this.flushDecoder();
         }
+        return this.updateText(endOfInput);
     }
-
 }
@@ -16,8 +16,8 @@
 
 package com.techsenger.ansi4j.core.impl;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import com.techsenger.ansi4j.core.api.FailureReason;
 import com.techsenger.ansi4j.core.api.Fragment;
 import com.techsenger.ansi4j.core.api.ParserFactory;
@@ -29,9 +29,7 @@ import com.techsenger.ansi4j.core.api.StringParser;
  */
 public class StringParserImpl extends AbstractParser implements StringParser {
 
-    private static final Logger logger = LoggerFactory.getLogger(StringParserImpl.class);
-
-    public StringParserImpl(String text, ParserFactory factory) {
+    public StringParserImpl(CharSequence text, ParserFactory factory) {
         super(text, factory);
     }
 
@@ -40,11 +38,25 @@ public class StringParserImpl extends AbstractParser implements StringParser {
         try {
             return this.doParse();
         } catch (Exception ex) {
-            logger.error("Error parsing text", ex);
+            this.reportParserError(ex);
             return null;
         }
     }
 
+    @Override
+    public Stream<Fragment> stream() {
+        return StreamSupport.stream(new FragmentSpliterator(this.getText(), this.getCurrentIndex(),
+                this.getText().length(), this.getFactory()), false);
+    }
+
+    @Override
+    public void reset(CharSequence text) {
+        if (text == null) {
+            throw new IllegalArgumentException("No text provided");
+        }
+        this.resetText(text);
+    }
+
     @Override
     protected boolean delayFunctionParsing(FailureReason reason) {
         return false;
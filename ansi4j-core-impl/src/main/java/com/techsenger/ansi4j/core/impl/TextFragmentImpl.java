@@ -25,8 +25,15 @@ import com.techsenger.ansi4j.core.api.TextFragment;
  */
 public class TextFragmentImpl extends AbstractFragment implements TextFragment {
 
-    public TextFragmentImpl(String text, int currentIndex) {
-        super(FragmentType.TEXT, text, currentIndex);
+    /**
+     *
+     * @param source the parsed text.
+     * @param sourceStartIndex start index of the fragment in source, inclusive.
+     * @param sourceEndIndex end index of the fragment in source, exclusive.
+     * @param currentIndex index of the fragment in the whole text.
+     */
+    public TextFragmentImpl(CharSequence source, int sourceStartIndex, int sourceEndIndex, int currentIndex) {
+        super(FragmentType.TEXT, source, sourceStartIndex, sourceEndIndex, currentIndex);
     }
 
     @Override
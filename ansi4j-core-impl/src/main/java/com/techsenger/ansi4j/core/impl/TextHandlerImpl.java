@@ -31,8 +31,9 @@ public class TextHandlerImpl implements TextHandler {
     private Environment environment;
 
     @Override
-    public TextHandlerResult handle(String text, int currentIndex) {
-        return new TextHandlerResultImpl(Optional.of(new TextFragmentImpl(text, currentIndex)), null);
+    public TextHandlerResult handle(CharSequence text, int startIndex, int endIndex, int currentIndex) {
+        var fragment = new TextFragmentImpl(text, startIndex, endIndex, currentIndex);
+        return new TextHandlerResultImpl(Optional.of(fragment), null);
     }
 
     @Override
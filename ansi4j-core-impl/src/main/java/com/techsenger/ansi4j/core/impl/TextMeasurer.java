@@ -0,0 +1,114 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.impl;
+
+import com.techsenger.ansi4j.core.api.FragmentVisitor;
+import com.techsenger.ansi4j.core.api.ParserFactory;
+import com.techsenger.ansi4j.core.api.function.Function;
+import com.techsenger.ansi4j.core.api.function.FunctionArguments;
+import com.techsenger.ansi4j.core.api.iso6429.C0ControlFunction;
+import com.techsenger.ansi4j.core.impl.utils.CharacterWidths;
+
+/**
+ * Measures the number of columns the text takes in a terminal. The text is parsed by {@link VisitingParser}, so
+ * functions are skipped and no fragments are created. Measurer is cheap, so it is created for every text and
+ * no measurer outlives the call.
+ *
+ * @author Pavel Castornii
+ */
+final class TextMeasurer implements FragmentVisitor {
+
+    private final VisitingParser parser;
+
+    /**
+     * Distance between tab stops or zero if control characters are not taken into account.
+     */
+    private int tabSize;
+
+    private int column;
+
+    private int maxColumn;
+
+    TextMeasurer(ParserFactory factory) {
+        this.parser = new VisitingParser(factory);
+    }
+
+    /**
+     * Returns the width of the text.
+     *
+     * @param text
+     * @param tabSize distance between tab stops or zero if control characters have no effect.
+     * @return
+     */
+    int measure(CharSequence text, int tabSize) {
+        this.tabSize = tabSize;
+        this.column = 0;
+        this.maxColumn = 0;
+        this.parser.visit(text, this);
+        return Math.max(this.maxColumn, this.column);
+    }
+
+    @Override
+    public void onText(CharSequence source, int startIndex, int endIndex) {
+        for (var i = startIndex; i < endIndex; i++) {
+            int c = source.charAt(i);
+            if (c < 0x20) {
+                this.moveCursor(c);
+                continue;
+            }
+            if (Character.isHighSurrogate((char) c) && i + 1 < endIndex
+                    && Character.isLowSurrogate(source.charAt(i + 1))) {
+                c = Character.toCodePoint((char) c, source.charAt(i + 1));
+                i++;
+            }
+            this.column += CharacterWidths.getWidth(c);
+        }
+    }
+
+    @Override
+    public void onFunction(Function function, CharSequence source, int startIndex, int endIndex,
+            FunctionArguments arguments) {
+        if (function instanceof C0ControlFunction) {
+            this.moveCursor(source.charAt(startIndex));
+        }
+    }
+
+    /**
+     * Moves the cursor as a terminal does for C0 control characters. Other characters don't move it.
+     */
+    private void moveCursor(int c) {
+        if (this.tabSize == 0) {
+            return;
+        }
+        switch (c) {
+            case '\t':
+                this.column = (this.column / this.tabSize + 1) * this.tabSize;
+                break;
+            case '\b':
+                this.maxColumn = Math.max(this.maxColumn, this.column);
+                this.column = Math.max(this.column - 1, 0);
+                break;
+            case '\r':
+            case '\n':
+                this.maxColumn = Math.max(this.maxColumn, this.column);
+                this.column = 0;
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import com.techsenger.ansi4j.core.api.FragmentVisitor;
+import com.techsenger.ansi4j.core.api.ParserFactory;
+import com.techsenger.ansi4j.core.api.function.Function;
+import com.techsenger.ansi4j.core.api.function.FunctionArguments;
+import com.techsenger.ansi4j.core.api.iso6429.ControlFunction;
+import com.techsenger.ansi4j.core.api.utils.Characters;
+
+/**
+ * Removes functions from the text. The text is parsed by {@link VisitingParser}, so no fragments are created, and
+ * the runs of text between functions are copied to the output in bulk.
+ *
+ * @author Pavel Castornii
+ */
+final class TextStripper {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final ParserFactory factory;
+
+    private final VisitingParser parser;
+
+    TextStripper(ParserFactory factory) {
+        this.factory = factory;
+        this.parser = new VisitingParser(factory);
+    }
+
+    void strip(CharSequence text, Appendable output) throws IOException {
+        try {
+            this.parser.visit(text, new FragmentVisitor() {
+
+                @Override
+                public void onText(CharSequence source, int startIndex, int endIndex) {
+                    try {
+                        output.append(source, startIndex, endIndex);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                }
+
+                @Override
+                public void onFunction(Function function, CharSequence source, int startIndex, int endIndex,
+                        FunctionArguments arguments) {
+                    //functions are removed
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Reads the stream into a char buffer and strips the buffer. A function whose end hasn't been received yet is
+     * kept in the buffer and parsed again with next chars. If the function exceeds the limits, its chars become text
+     * up to the end of the function, so they are not kept.
+     */
+    void strip(InputStream stream, Charset encoding, Writer writer) throws IOException {
+        var decoder = encoding.newDecoder()
+                .onMalformedInput(this.factory.getCodingErrorAction())
+                .onUnmappableCharacter(this.factory.getCodingErrorAction());
+        var reader = new InputStreamReader(stream, decoder);
+        var maxPendingLength = Math.min(this.factory.getMaxFunctionLength(), this.factory.getMaxBufferSize());
+        var visitor = new WritingVisitor(writer);
+        var length = 0;
+        ControlFunction skippedFunction = null;
+        ResumableFunctionHandler skippedFunctionHandler = null;
+        try {
+            while (true) {
+                var count = reader.read(visitor.buffer, length, visitor.buffer.length - length);
+                var endOfInput = count == -1;
+                if (count > 0) {
+                    length += count;
+                }
+                var textLength = length;
+                //ESC at the end can be the first char of a function
+                if (!endOfInput && textLength > 0 && visitor.buffer[textLength - 1] == Characters.ESC) {
+                    textLength--;
+                }
+                var text = CharBuffer.wrap(visitor.buffer, 0, textLength);
+                var searchIndex = 0;
+                if (skippedFunction != null) {
+                    searchIndex = skippedFunctionHandler.findEnd(text, 0, skippedFunction);
+                    if (searchIndex == -1) {
+                        searchIndex = textLength;
+                    } else {
+                        skippedFunction = null;
+                        skippedFunctionHandler = null;
+                    }
+                }
+                var visitedIndex = this.parser.visit(text, searchIndex, visitor, endOfInput);
+                if (textLength - visitedIndex > maxPendingLength) {
+                    //the function that is too long becomes text and the rest of it is skipped with next chars
+                    visitor.onText(text, visitedIndex, textLength);
+                    visitedIndex = textLength;
+                    skippedFunctionHandler = this.parser.getDelayedFunctionHandler();
+                    if (skippedFunctionHandler != null) {
+                        skippedFunction = this.parser.getDelayedFunction();
+                    }
+                }
+                if (endOfInput) {
+                    return;
+                }
+                System.arraycopy(visitor.buffer, visitedIndex, visitor.buffer, 0, length - visitedIndex);
+                length -= visitedIndex;
+                if (length == visitor.buffer.length) {
+                    visitor.buffer = Arrays.copyOf(visitor.buffer, visitor.buffer.length * 2);
+                }
+            }
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Writes the text of the buffer directly from the array.
+     */
+    private static final class WritingVisitor implements FragmentVisitor {
+
+        private final Writer writer;
+
+        private char[] buffer = new char[BUFFER_SIZE];
+
+        WritingVisitor(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void onText(CharSequence source, int startIndex, int endIndex) {
+            try {
+                this.writer.write(this.buffer, startIndex, endIndex - startIndex);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public void onFunction(Function function, CharSequence source, int startIndex, int endIndex,
+                FunctionArguments arguments) {
+            //functions are removed
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.impl;
+
+import com.techsenger.ansi4j.core.api.FragmentVisitor;
+import com.techsenger.ansi4j.core.api.FunctionFailureReason;
+import com.techsenger.ansi4j.core.api.FunctionFinder;
+import com.techsenger.ansi4j.core.api.IgnoredFunctionAction;
+import com.techsenger.ansi4j.core.api.ParserFactory;
+import com.techsenger.ansi4j.core.api.ParserMetrics;
+import com.techsenger.ansi4j.core.api.iso6429.ControlFunction;
+
+/**
+ * Parses the text in the same way as string parser, but gives fragments to a visitor. If the finder and the handlers
+ * are the ones of this module, no objects are created for fragments. Other finders and handlers are supported, but
+ * their results are created as usual.
+ *
+ * @author Pavel Castornii
+ */
+final class VisitingParser {
+
+    private final ParserFactory factory;
+
+    private final FunctionScan scan = new FunctionScan();
+
+    private final ParserMetrics metrics;
+
+    private int textCount;
+
+    private int functionCount;
+
+    VisitingParser(ParserFactory factory) {
+        this.factory = factory;
+        this.metrics = factory.getMetrics();
+    }
+
+    void visit(CharSequence text, FragmentVisitor visitor) {
+        this.visit(text, 0, visitor, true);
+    }
+
+    /**
+     * Visits the text. If it isn't the end of input, the parser stops at the first function whose end isn't in the
+     * text, so that this function can be visited when more chars are received.
+     *
+     * @param text
+     * @param searchIndex the index from which functions are searched, the chars before it are text.
+     * @param visitor
+     * @param endOfInput
+     * @return the index to which the text was visited.
+     */
+    int visit(CharSequence text, int searchIndex, FragmentVisitor visitor, boolean endOfInput) {
+        var event = ParserEvents.beginParseChunk();
+        this.textCount = 0;
+        this.functionCount = 0;
+        var visitedIndex = this.doVisit(text, searchIndex, visitor, endOfInput);
+        if (event != null) {
+            ParserEvents.commitParseChunk(event, "visiting", visitedIndex, this.textCount, this.functionCount);
+        }
+        return visitedIndex;
+    }
+
+    private int doVisit(CharSequence text, int fromIndex, FragmentVisitor visitor, boolean endOfInput) {
+        var finder = this.factory.getFunctionFinder();
+        var textStartIndex = 0;
+        var searchIndex = fromIndex;
+        while (this.findFunction(finder, text, searchIndex)) {
+            var functionIndex = this.scan.getFunctionIndex();
+            if (!this.scanFunction(text)) {
+                if (!endOfInput && this.scan.getFailureReason() == FunctionFailureReason.NO_END_OF_FUNCTION) {
+                    if (functionIndex > textStartIndex) {
+                        this.visitText(visitor, text, textStartIndex, functionIndex);
+                    }
+                    if (this.metrics != null) {
+                        this.metrics.onParsingDelayed(this.scan.getFunction());
+                        this.metrics.onCharsParsed(functionIndex);
+                    }
+                    return functionIndex;
+                }
+                if (this.scan.getFailureReason() != null) {
+                    this.factory.getFailureListener().onFunctionFailure(this.scan.getFunction(), functionIndex,
+                            this.scan.getFailureReason());
+                }
+                searchIndex = functionIndex + 1;
+                continue;
+            }
+            var endIndex = this.scan.getEndIndex();
+            searchIndex = endIndex;
+            if (this.isLimitExceeded(functionIndex, endIndex)) {
+                continue;
+            }
+            var interesting = this.factory.isInterestedIn(this.scan.getFunction());
+            if (!interesting && this.factory.getIgnoredFunctionAction() == IgnoredFunctionAction.TEXT) {
+                continue;
+            }
+            if (functionIndex > textStartIndex) {
+                this.visitText(visitor, text, textStartIndex, functionIndex);
+            }
+            textStartIndex = endIndex;
+            if (interesting) {
+                this.functionCount++;
+                if (this.metrics != null) {
+                    this.metrics.onFunction(this.scan.getFunction());
+                }
+                visitor.onFunction(this.scan.getFunction(), text, functionIndex, endIndex, this.scan);
+            }
+        }
+        if (textStartIndex < text.length()) {
+            this.visitText(visitor, text, textStartIndex, text.length());
+        }
+        if (this.metrics != null) {
+            this.metrics.onCharsParsed(text.length());
+        }
+        return text.length();
+    }
+
+    /**
+     * Returns the function at which the last visit stopped, because its end wasn't in the text.
+     *
+     * @return
+     */
+    ControlFunction getDelayedFunction() {
+        return (ControlFunction) this.scan.getFunction();
+    }
+
+    /**
+     * Returns the handler of {@link #getDelayedFunction()} if it can find the end of the function without its
+     * beginning, otherwise null.
+     *
+     * @return
+     */
+    ResumableFunctionHandler getDelayedFunctionHandler() {
+        var handler = this.factory.getFunctionHandler(this.scan.getFunctionType());
+        if (handler instanceof ResumableFunctionHandler) {
+            return (ResumableFunctionHandler) handler;
+        }
+        return null;
+    }
+
+    private void visitText(FragmentVisitor visitor, CharSequence text, int startIndex, int endIndex) {
+        this.textCount++;
+        if (this.metrics != null) {
+            this.metrics.onText();
+        }
+        visitor.onText(text, startIndex, endIndex);
+    }
+
+    private boolean findFunction(FunctionFinder finder, CharSequence text, int searchIndex) {
+        if (finder instanceof FunctionFinderImpl) {
+            return ((FunctionFinderImpl) finder).find(searchIndex, text, this.scan);
+        }
+        var result = finder.find(searchIndex, text);
+        if (result.isEmpty()) {
+            return false;
+        }
+        this.scan.setFunction(text, result.get().getFunctionIndex(), result.get().getFunction(),
+                result.get().getFunctionType());
+        return true;
+    }
+
+    /**
+     * Checks the limits of the factory for the scanned function. The text of the function that exceeds them is not
+     * scanned again.
+     */
+    private boolean isLimitExceeded(int functionIndex, int endIndex) {
+        if (endIndex - functionIndex > this.factory.getMaxFunctionLength()
+                || this.scan.getCount() > this.factory.getMaxArgumentCount()) {
+            this.factory.getFailureListener().onFunctionFailure(this.scan.getFunction(), functionIndex,
+                    FunctionFailureReason.LIMIT_EXCEEDED);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Scans the found function.
+     *
+     * @return true if the function was parsed successfully.
+     */
+    private boolean scanFunction(CharSequence text) {
+        var handler = this.factory.getFunctionHandler(this.scan.getFunctionType());
+        if (handler == null) {
+            return false;
+        }
+        var functionIndex = this.scan.getFunctionIndex();
+        var function = (ControlFunction) this.scan.getFunction();
+        if (handler instanceof FunctionScanner) {
+            ((FunctionScanner) handler).scan(text, functionIndex, function, this.scan);
+        } else {
+            var result = handler.handle(text, functionIndex, function, functionIndex);
+            if (result.getFragment().isPresent()) {
+                var fragment = result.getFragment().get();
+                for (var i = 0; i < fragment.getArgumentCount(); i++) {
+                    if (fragment.isIntArgument(i)) {
+                        this.scan.addInt(fragment.getIntArgument(i), fragment.isDefaultArgument(i));
+                    } else {
+                        this.scan.addValue(fragment.getArguments().get(i).getValue(), fragment.isDefaultArgument(i));
+                    }
+                }
+                this.scan.succeed(fragment.getFunction(), fragment.getEndIndex());
+            } else {
+                this.scan.fail(result.getFailureReason());
+            }
+        }
+        return this.scan.getEndIndex() != -1;
+    }
+}
@@ -18,6 +18,7 @@ package com.techsenger.ansi4j.core.impl.iso6429;
 
 import com.techsenger.ansi4j.core.api.Environment;
 import com.techsenger.ansi4j.core.api.FunctionHandler;
+import com.techsenger.ansi4j.core.impl.utils.CharSequenceUtils;
 
 /**
  *
@@ -33,10 +34,21 @@ public abstract class AbstractFunctionHandler implements FunctionHandler {
      * @param endIndex
      * @return
      */
-    protected boolean isEndOfFunctionPresent(String text, int endIndex) {
+    protected boolean isEndOfFunctionPresent(CharSequence text, int endIndex) {
         return !(endIndex > text.length());
     }
 
+    /**
+     * Returns the index of the first occurrence of the string in text starting from the fromIndex or -1.
+     * @param text
+     * @param str
+     * @param fromIndex
+     * @return
+     */
+    protected int indexOf(CharSequence text, String str, int fromIndex) {
+        return CharSequenceUtils.indexOf(text, str, fromIndex);
+    }
+
     @Override
     public void initialize(Environment environment) {
         this.environment = environment;
@@ -25,13 +25,15 @@ import com.techsenger.ansi4j.core.api.iso6429.ControlFunctionType;
 import com.techsenger.ansi4j.core.impl.FunctionFragmentImpl;
 import com.techsenger.ansi4j.core.api.iso6429.ControlFunction;
 import com.techsenger.ansi4j.core.impl.FunctionHandlerResultImpl;
+import com.techsenger.ansi4j.core.impl.FunctionScanner;
+import com.techsenger.ansi4j.core.impl.FunctionScan;
 import com.techsenger.ansi4j.core.api.FunctionHandlerResult;
 
 /**
  *
  * @author Pavel Castornii
  */
-public class C1ControlFunctionHandler extends AbstractFunctionHandler {
+public class C1ControlFunctionHandler extends AbstractFunctionHandler implements FunctionScanner {
 
     @Override
     public FunctionType getFunctionType() {
@@ -39,8 +41,7 @@ public class C1ControlFunctionHandler extends AbstractFunctionHandler {
     }
 
     @Override
-    public FunctionHandlerResult handle(String text, ControlFunction function, int currentIndex) {
-        var startIndex = 0;
+    public FunctionHandlerResult handle(CharSequence text, int startIndex, ControlFunction function, int currentIndex) {
         int endIndex;
         if (this.getEnvironment() == Environment._7_BIT) {
             endIndex = startIndex + 2;
@@ -50,8 +51,22 @@ public class C1ControlFunctionHandler extends AbstractFunctionHandler {
         if (!isEndOfFunctionPresent(text, endIndex)) {
             return new FunctionHandlerResultImpl(Optional.empty(), FunctionFailureReason.NO_END_OF_FUNCTION);
         }
-        var functionText = text.substring(startIndex, endIndex);
         return new FunctionHandlerResultImpl(Optional.of(
-                new FunctionFragmentImpl(functionText, currentIndex, function, new ArrayList<>())), null);
+                new FunctionFragmentImpl(text, startIndex, endIndex, currentIndex, function, new ArrayList<>())), null);
+    }
+
+    @Override
+    public void scan(CharSequence text, int startIndex, ControlFunction function, FunctionScan scan) {
+        int endIndex;
+        if (this.getEnvironment() == Environment._7_BIT) {
+            endIndex = startIndex + 2;
+        } else {
+            endIndex = startIndex + 1;
+        }
+        if (!isEndOfFunctionPresent(text, endIndex)) {
+            scan.fail(FunctionFailureReason.NO_END_OF_FUNCTION);
+        } else {
+            scan.succeed(function, endIndex);
+        }
     }
 }
@@ -16,54 +16,109 @@
 
 package com.techsenger.ansi4j.core.impl.iso6429;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
-import com.techsenger.ansi4j.core.impl.FunctionMatcher;
-import com.techsenger.ansi4j.core.api.function.FunctionArgument;
+import com.techsenger.ansi4j.core.api.function.Function;
 import com.techsenger.ansi4j.core.impl.FunctionDescriptor;
 import com.techsenger.ansi4j.core.api.function.FunctionType;
 import com.techsenger.ansi4j.core.api.iso6429.ControlFunctionType;
-import com.techsenger.ansi4j.core.impl.function.FunctionArgumentImpl;
 import com.techsenger.ansi4j.core.impl.FunctionFragmentImpl;
 import com.techsenger.ansi4j.core.api.FunctionFailureReason;
 import com.techsenger.ansi4j.core.api.iso6429.ControlFunction;
+import com.techsenger.ansi4j.core.api.utils.Characters;
 import com.techsenger.ansi4j.core.impl.FunctionHandlerResultImpl;
+import com.techsenger.ansi4j.core.impl.FunctionScan;
+import com.techsenger.ansi4j.core.impl.FunctionScanner;
+import com.techsenger.ansi4j.core.impl.ResumableFunctionHandler;
 import com.techsenger.ansi4j.core.api.FunctionHandlerResult;
 
 /**
  *
  * @author Pavel Castornii
  */
-public class ControlSequenceHandler extends AbstractFunctionHandler {
+public class ControlSequenceHandler extends AbstractFunctionHandler implements FunctionScanner,
+        ResumableFunctionHandler {
 
-    private final FunctionMatcher matcher = new ControlSequenceMatcher();
+    private final ControlSequenceMatcher matcher = new ControlSequenceMatcher();
+
+    /**
+     * Scans that are used to parse arguments without creating temporary strings and lists.
+     */
+    private final ThreadLocal<FunctionScan> scans = ThreadLocal.withInitial(FunctionScan::new);
 
     @Override
-    public FunctionHandlerResult handle(String text, ControlFunction function, int currentIndex) {
-        var startIndex = 0;
-        FunctionDescriptor functionDescriptor = this.matcher.match(startIndex, text);
-        if (functionDescriptor == null) {
-            return new FunctionHandlerResultImpl(Optional.empty(), FunctionFailureReason.UNKNOWN_FUNCTION);
+    public FunctionHandlerResult handle(CharSequence text, int startIndex, ControlFunction function, int currentIndex) {
+        var scan = this.scans.get();
+        try {
+            scan.setFunction(text, startIndex, function, getFunctionType());
+            this.scan(text, startIndex, function, scan);
+            if (scan.getEndIndex() == -1) {
+                return new FunctionHandlerResultImpl(Optional.empty(),
+                        (FunctionFailureReason) scan.getFailureReason());
+            }
+            var fragment = new FunctionFragmentImpl(text, startIndex, scan.getEndIndex(), currentIndex,
+                    scan.getFunction(), scan);
+            return new FunctionHandlerResultImpl(Optional.of(fragment), null);
+        } finally {
+            //the scan mustn't keep the text
+            scan.setFunction(null, -1, null, null);
         }
-        //getting text that will be parsed
-        var codes = functionDescriptor.getCodes();
-        final var finalByteIndex = text.indexOf(codes.get(codes.size() - 1), startIndex);
-        if (finalByteIndex == -1) {
+    }
+
+    @Override
+    public FunctionHandlerResult handle(CharSequence text, int startIndex, ControlFunction function, int currentIndex,
+            int scannedIndex) {
+        //the sequence is parsed only when its final byte is present
+        if (!this.isFinalBytePresent(text, Math.max(startIndex + 2, scannedIndex))) {
             return new FunctionHandlerResultImpl(Optional.empty(), FunctionFailureReason.NO_END_OF_FUNCTION);
         }
-        var functionText = text.substring(startIndex, finalByteIndex + 1);
-        String argStr = null;
-        //getting arguments
-        if (ControlSequenceUtils.isIntermediateByte(functionText.codePointAt(functionText.length() - 1))) {
-            argStr = functionText.substring(2, functionText.length() - 2);
+        return this.handle(text, startIndex, function, currentIndex);
+    }
+
+    @Override
+    public int findEnd(CharSequence text, int fromIndex, ControlFunction function) {
+        for (var i = fromIndex; i < text.length(); i++) {
+            if (ControlSequenceUtils.isFinalByte(text.charAt(i))) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void scan(CharSequence text, int startIndex, ControlFunction function, FunctionScan scan) {
+        var parameterEndIndex = this.findParameterEnd(text, startIndex);
+        FunctionDescriptor functionDescriptor = null;
+        if (parameterEndIndex < text.length() && ControlSequenceUtils.isFinalByte(text.charAt(parameterEndIndex))) {
+            //there are only digits and semicolons before the final byte
+            functionDescriptor = this.matcher.matchFinalByte(text.charAt(parameterEndIndex));
         } else {
-            argStr = functionText.substring(2, functionText.length() - 1);
+            functionDescriptor = this.matcher.match(startIndex, text);
+        }
+        if (functionDescriptor == null) {
+            if (!this.isFinalBytePresent(text, startIndex + 2)) {
+                scan.fail(FunctionFailureReason.NO_END_OF_FUNCTION);
+            } else {
+                scan.fail(FunctionFailureReason.UNKNOWN_FUNCTION);
+            }
+            return;
+        }
+        //the first final byte is found, it isn't before the parameter end
+        var endIndex = parameterEndIndex;
+        while (!ControlSequenceUtils.isFinalByte(text.charAt(endIndex))) {
+            endIndex++;
         }
-        List<FunctionArgument> arguments = this.parseArguments(argStr, functionDescriptor);
-        var fragment = new FunctionFragmentImpl(functionText, currentIndex,
-                functionDescriptor.getFunction(), arguments);
-        return new FunctionHandlerResultImpl(Optional.of(fragment), null);
+        var argumentEndIndex = endIndex;
+        if (ControlSequenceUtils.isIntermediateByte(text.charAt(argumentEndIndex - 1))) {
+            argumentEndIndex--;
+        }
+        endIndex++;
+        if (functionDescriptor.getParameters() != null
+                && !this.scanArguments(text, startIndex + 2, argumentEndIndex, functionDescriptor.getFunction(),
+                        scan)) {
+            scan.fail(FunctionFailureReason.UNKNOWN_FUNCTION);
+            return;
+        }
+        scan.succeed(functionDescriptor.getFunction(), endIndex);
     }
 
     @Override
@@ -71,42 +126,101 @@ public class ControlSequenceHandler extends AbstractFunctionHandler {
         return ControlFunctionType.CONTROL_SEQUENCE;
     }
 
-    List<FunctionArgument> parseArguments(String argStr, FunctionDescriptor functionDescriptor) {
-        //no arguments
-        if (functionDescriptor.getParameters() == null) {
-            return null;
+    /**
+     * Returns the index of the first char after ESC [ that is not a digit or a semicolon. Such sequences (for example,
+     * SGR) make up the most part of control sequences in terminal output, so if the char is a final byte, the function
+     * is found by this byte without the matcher and the text isn't scanned again to find the end of the sequence.
+     * Arguments are not touched here, so other sequences don't pay for this path.
+     *
+     * @return the index or start index if the sequence doesn't start with ESC [.
+     */
+    private int findParameterEnd(CharSequence text, int startIndex) {
+        if (text.charAt(startIndex) != Characters.ESC || startIndex + 1 >= text.length()
+                || text.charAt(startIndex + 1) != Characters.LEFT_SB) {
+            return startIndex;
         }
-        List<FunctionArgument> arguments = new ArrayList<>();
-        List<String> strArgs = ControlSequenceUtils.parseArguments(argStr);
-        if (strArgs == null) {
-            var function = functionDescriptor.getFunction();
-            if (function.getDefaultValues() != null) {
-                var value = function.getDefaultValues().get(0);
-                arguments.add(new FunctionArgumentImpl(value, true));
+        var i = startIndex + 2;
+        while (i < text.length()) {
+            var c = text.charAt(i);
+            if ((c < '0' || c > '9') && c != ';') {
+                break;
             }
-        } else {
-            var defaultValues = functionDescriptor.getFunction().getDefaultValues();
-            for (var i = 0; i < strArgs.size(); i++) {
-                var strArg = strArgs.get(i);
-                FunctionArgument arg = null;
-                if (strArg == null) {
-                    //it is default value
-                    if (defaultValues == null || defaultValues.size() - 1 < i) {
-                        throw new IllegalArgumentException("Not default value with index " + i + " for "
-                                + functionDescriptor.getFunction() + " arguments [" + argStr + "]");
-                    } else {
-                        arg = new FunctionArgumentImpl(defaultValues.get(i), true);
-                    }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Adds the arguments separated with semicolon. Numbers are parsed digit by digit from the text, empty arguments
+     * get default values.
+     *
+     * @return false if the arguments are invalid.
+     */
+    private boolean scanArguments(CharSequence text, int startIndex, int endIndex, Function function,
+            FunctionScan scan) {
+        var defaultValues = function.getDefaultValues();
+        if (startIndex == endIndex) {
+            if (defaultValues != null) {
+                scan.addValue(defaultValues.get(0), true);
+            }
+            return true;
+        }
+        var argumentIndex = 0;
+        var argumentStart = startIndex;
+        for (var i = startIndex; i <= endIndex; i++) {
+            if (i < endIndex && text.charAt(i) != ';') {
+                continue;
+            }
+            if (argumentStart == i) {
+                if (defaultValues == null || defaultValues.size() - 1 < argumentIndex) {
+                    return false;
+                }
+                scan.addValue(defaultValues.get(argumentIndex), true);
+            } else {
+                var value = this.parseInt(text, argumentStart, i);
+                if (value >= 0) {
+                    scan.addInt(value, false);
                 } else {
-                    if (ControlSequenceUtils.isNumber(strArg)) {
-                        arg = new FunctionArgumentImpl(Integer.valueOf(strArg), false);
-                    } else {
-                        arg = new FunctionArgumentImpl(strArg, false);
-                    }
+                    scan.addText(argumentStart, i);
                 }
-                arguments.add(arg);
+            }
+            argumentIndex++;
+            argumentStart = i + 1;
+        }
+        return true;
+    }
+
+    /**
+     * Parses not negative integer.
+     *
+     * @return the value or -1 if the text isn't a number or the number is too big.
+     */
+    private int parseInt(CharSequence text, int startIndex, int endIndex) {
+        var value = 0;
+        for (var i = startIndex; i < endIndex; i++) {
+            var digit = Character.digit(text.charAt(i), 10);
+            if (digit < 0 || value > (Integer.MAX_VALUE - digit) / 10) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Checks if there is a final byte in the text from the index. If there isn't, then the text doesn't contain the
+     * whole sequence yet.
+     *
+     * @param text
+     * @param fromIndex index after the control sequence introducer.
+     * @return
+     */
+    private boolean isFinalBytePresent(CharSequence text, int fromIndex) {
+        for (var i = fromIndex; i < text.length(); i++) {
+            if (ControlSequenceUtils.isFinalByte(text.charAt(i))) {
+                return true;
             }
         }
-        return arguments;
+        return false;
     }
 }
@@ -39,38 +39,61 @@ class ControlSequenceMatcher implements FunctionMatcher {
 
     private static final Logger logger = LoggerFactory.getLogger(ControlSequenceMatcher.class);
 
+    private static final int FINAL_BYTE_TABLE_SIZE = 0x7F;
+
     /**
      * Identifier is one or two letter (first space) string.
      */
     private Map<String, FunctionDescriptor> descriptorsByIdentifier = new HashMap<>();
 
+    /**
+     * Descriptors whose identifier is a final byte, by the final byte. The table allows to match sequences without
+     * creating identifier strings.
+     */
+    private final FunctionDescriptor[] descriptorsByFinalByte = new FunctionDescriptor[FINAL_BYTE_TABLE_SIZE];
+
+    /**
+     * Descriptors whose identifier is space and a final byte, by the final byte.
+     */
+    private final FunctionDescriptor[] spaceDescriptorsByFinalByte = new FunctionDescriptor[FINAL_BYTE_TABLE_SIZE];
+
     ControlSequenceMatcher() {
         this(Arrays.asList(ControlSequenceFunction.values()));
     }
 
     @Override
-    public FunctionDescriptor match(int startIndex, String functionText) {
+    public FunctionDescriptor match(int startIndex, CharSequence functionText) {
         if (functionText.charAt(startIndex) != Characters.ESC
                 || functionText.charAt(startIndex + 1) != Characters.LEFT_SB) {
             return null;
         }
-        String intermediateByte = "";
-        String finalByte = null;
+        var intermediateByte = -1;
         for (int offset = startIndex + 2; offset < functionText.length();) {
-            final int codepoint = functionText.codePointAt(offset);
+            final int codepoint = Character.codePointAt(functionText, offset);
             if (ControlSequenceUtils.isIntermediateByte(codepoint)) {
-                intermediateByte = new String(Character.toChars(codepoint));
+                intermediateByte = codepoint;
             } else if (ControlSequenceUtils.isFinalByte(codepoint)) {
-                finalByte = new String(Character.toChars(codepoint));
-                break;
+                if (intermediateByte == -1) {
+                    return this.descriptorsByFinalByte[codepoint];
+                } else if (intermediateByte == ' ') {
+                    return this.spaceDescriptorsByFinalByte[codepoint];
+                } else {
+                    return null;
+                }
             }
             offset += Character.charCount(codepoint);
         }
-        if (finalByte != null) {
-            return this.descriptorsByIdentifier.get(intermediateByte + finalByte);
-        } else {
-            return null;
-        }
+        return null;
+    }
+
+    /**
+     * Matches the sequence that has no intermediate bytes by its final byte.
+     *
+     * @param finalByte
+     * @return descriptor or null.
+     */
+    FunctionDescriptor matchFinalByte(char finalByte) {
+        return this.descriptorsByFinalByte[finalByte];
     }
 
     /**
@@ -163,6 +186,12 @@ class ControlSequenceMatcher implements FunctionMatcher {
         }
         if (!descriptorsByIdentifier.containsKey(identifier)) {
             descriptorsByIdentifier.put(identifier, descriptor);
+            var finalByte = identifier.charAt(identifier.length() - 1);
+            if (identifier.length() == 1) {
+                descriptorsByFinalByte[finalByte] = descriptor;
+            } else {
+                spaceDescriptorsByFinalByte[finalByte] = descriptor;
+            }
         } else {
             throw new IllegalStateException("Identifier " + identifier + " already exists. Can't add " + function);
         }
@@ -55,11 +55,11 @@ final class ControlSequenceUtils {
      * @param text
      * @return list of null if there are no arguments.
      */
-    protected static List<String> parseArguments(String text) {
+    protected static List<String> parseArguments(CharSequence text) {
         List<String> arguments = new ArrayList<>();
         StringBuilder builder = new StringBuilder();
         for (int offset = 0; offset < text.length();) {
-            final int codepoint = text.codePointAt(offset);
+            final int codepoint = Character.codePointAt(text, offset);
             if (isSemicolon(codepoint)) {
                 if (builder.length() > 0) {
                     arguments.add(builder.toString());
@@ -28,6 +28,9 @@ import com.techsenger.ansi4j.core.impl.FunctionFragmentImpl;
 import com.techsenger.ansi4j.core.api.FunctionFailureReason;
 import com.techsenger.ansi4j.core.api.iso6429.ControlFunction;
 import com.techsenger.ansi4j.core.impl.FunctionHandlerResultImpl;
+import com.techsenger.ansi4j.core.impl.FunctionScan;
+import com.techsenger.ansi4j.core.impl.FunctionScanner;
+import com.techsenger.ansi4j.core.impl.ResumableFunctionHandler;
 import com.techsenger.ansi4j.core.api.FunctionHandlerResult;
 
 
@@ -35,7 +38,8 @@ import com.techsenger.ansi4j.core.api.FunctionHandlerResult;
  *
  * @author Pavel Castornii
  */
-public class ControlStringHandler extends AbstractFunctionHandler {
+public class ControlStringHandler extends AbstractFunctionHandler implements FunctionScanner,
+        ResumableFunctionHandler {
 
     @Override
     public FunctionType getFunctionType() {
@@ -43,24 +47,23 @@ public class ControlStringHandler extends AbstractFunctionHandler {
     }
 
     @Override
-    public FunctionHandlerResult handle(String text, ControlFunction function, int currentIndex) {
-        var startIndex = 0;
-        String openingDelimiter = null;
-        String terminatingTerminator = null;
-        if (this.getEnvironment() == Environment._7_BIT) {
-            openingDelimiter = ((C1ControlFunction) function).getPattern();
-            terminatingTerminator = C1ControlFunction.ST.getPattern();
-        } else if (this.getEnvironment() == Environment._8_BIT) {
-            openingDelimiter = ((C1ControlFunction) function).get8BitPattern();
-            terminatingTerminator = C1ControlFunction.ST.get8BitPattern();
-        }
-        int endIndex = text.indexOf(terminatingTerminator, startIndex);
+    public FunctionHandlerResult handle(CharSequence text, int startIndex, ControlFunction function, int currentIndex) {
+        return this.handle(text, startIndex, function, currentIndex, startIndex);
+    }
+
+    @Override
+    public FunctionHandlerResult handle(CharSequence text, int startIndex, ControlFunction function, int currentIndex,
+            int scannedIndex) {
+        String openingDelimiter = this.getPattern((C1ControlFunction) function);
+        String terminatingTerminator = this.getPattern(C1ControlFunction.ST);
+        //the terminator can start before the scanned index and end after it
+        var searchIndex = Math.max(startIndex, scannedIndex - terminatingTerminator.length() + 1);
+        int endIndex = indexOf(text, terminatingTerminator, searchIndex);
         if (endIndex == -1) {
             return new FunctionHandlerResultImpl(Optional.empty(), FunctionFailureReason.NO_END_OF_FUNCTION);
         }
         endIndex += terminatingTerminator.length();
-        var functionText = text.substring(startIndex, endIndex);
-        var argumentString = text.substring(startIndex + openingDelimiter.length(), endIndex);
+        var argumentString = text.subSequence(startIndex + openingDelimiter.length(), endIndex).toString();
         var arguments = new ArrayList<FunctionArgument>();
         if (argumentString.indexOf(";") != -1) {
             var splits = argumentString.split(";");
@@ -73,6 +76,47 @@ public class ControlStringHandler extends AbstractFunctionHandler {
             arguments.add(argument);
         }
         return new FunctionHandlerResultImpl(Optional.of(
-                new FunctionFragmentImpl(functionText, currentIndex, function, arguments)), null);
+                new FunctionFragmentImpl(text, startIndex, endIndex, currentIndex, function, arguments)), null);
+    }
+
+    @Override
+    public int findEnd(CharSequence text, int fromIndex, ControlFunction function) {
+        var terminator = this.getPattern(C1ControlFunction.ST);
+        int endIndex = indexOf(text, terminator, fromIndex);
+        if (endIndex == -1) {
+            return -1;
+        }
+        return endIndex + terminator.length();
+    }
+
+    @Override
+    public void scan(CharSequence text, int startIndex, ControlFunction function, FunctionScan scan) {
+        var openingDelimiter = this.getPattern((C1ControlFunction) function);
+        var terminator = this.getPattern(C1ControlFunction.ST);
+        int endIndex = indexOf(text, terminator, startIndex);
+        if (endIndex == -1) {
+            scan.fail(FunctionFailureReason.NO_END_OF_FUNCTION);
+            return;
+        }
+        endIndex += terminator.length();
+        //the last argument contains the terminator, so it is never empty and String.split used for fragments
+        //doesn't remove any arguments
+        var argumentIndex = startIndex + openingDelimiter.length();
+        for (var i = argumentIndex; i < endIndex; i++) {
+            if (text.charAt(i) == ';') {
+                scan.addText(argumentIndex, i);
+                argumentIndex = i + 1;
+            }
+        }
+        scan.addText(argumentIndex, endIndex);
+        scan.succeed(function, endIndex);
+    }
+
+    private String getPattern(C1ControlFunction function) {
+        if (this.getEnvironment() == Environment._7_BIT) {
+            return function.getPattern();
+        } else {
+            return function.get8BitPattern();
+        }
     }
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.techsenger.ansi4j.core.impl.utils;
+
+/**
+ *
+ * @author Pavel Castornii
+ */
+public final class CharSequenceUtils {
+
+    /**
+     * Returns the index of the first occurrence of the string in text starting from the fromIndex or -1.
+     * @param text
+     * @param str
+     * @param fromIndex
+     * @return
+     */
+    public static int indexOf(CharSequence text, String str, int fromIndex) {
+        if (text instanceof String) {
+            return ((String) text).indexOf(str, fromIndex);
+        }
+        var first = str.charAt(0);
+        var max = text.length() - str.length();
+        for (var i = Math.max(fromIndex, 0); i <= max; i++) {
+            if (text.charAt(i) != first) {
+                continue;
+            }
+            var j = 1;
+            while (j < str.length() && text.charAt(i + j) == str.charAt(j)) {
+                j++;
+            }
+            if (j == str.length()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private CharSequenceUtils() {
+        //empty
+    }
+}
@@ -17,6 +17,7 @@
 module com.techsenger.ansi4j.core.impl {
     requires com.techsenger.ansi4j.core.api;
     requires org.slf4j;
+    requires static jdk.jfr;
 
     provides com.techsenger.ansi4j.core.api.spi.ParserFactoryService
             with com.techsenger.ansi4j.core.impl.ParserFactoryProvider;
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.techsenger.ansi4j.core.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ *
+ * @author Pavel Castornii
+ */
+public class ByteSequenceTest {
+
+    @Test
+    public void skipText_controlCodeInEveryPosition_wordWithCodeNotSkipped() {
+        for (var position = 0; position < 40; position++) {
+            var bytes = "a".repeat(40).getBytes(StandardCharsets.ISO_8859_1);
+            bytes[position] = 0x1B;
+            var sequence = new ByteSequence(ByteBuffer.wrap(bytes), StandardCharsets.ISO_8859_1);
+            var index = sequence.skipText(0, false);
+            assertThat(index).isLessThanOrEqualTo(position);
+            assertThat(position - index).isLessThan(Long.BYTES);
+        }
+    }
+
+    @Test
+    public void skipText_c1Code_skippedOnlyIfC1CodesAreText() {
+        var bytes = "abcdefgh\u0085bcdefghabcdefgh".getBytes(StandardCharsets.ISO_8859_1);
+        var sequence = new ByteSequence(ByteBuffer.wrap(bytes), StandardCharsets.ISO_8859_1);
+        assertThat(sequence.skipText(0, true)).isEqualTo(8);
+        assertThat(sequence.skipText(0, false)).isEqualTo(24);
+    }
+
+    @Test
+    public void skipText_highBytesAndDelete_skipped() {
+        var bytes = "éÿ\u007F  ~À ".repeat(3).getBytes(StandardCharsets.ISO_8859_1);
+        var sequence = new ByteSequence(ByteBuffer.wrap(bytes), StandardCharsets.ISO_8859_1);
+        assertThat(sequence.skipText(0, true)).isEqualTo(24);
+    }
+}
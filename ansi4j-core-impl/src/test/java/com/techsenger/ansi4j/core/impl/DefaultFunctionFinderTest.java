@@ -103,6 +103,14 @@ public class DefaultFunctionFinderTest {
         assertThat(result.getFunction()).isSameAs(C1ControlFunction.PM);
     }
 
+    @Test
+    public void find_surrogatesAndC1Code7Bit_onlyFunctionFound() {
+        var result = finder7Bit.find(0, "\uD83D\uDE00\u0085a\u001b[m").get();
+        assertThat(result.getFunctionIndex()).isEqualTo(4);
+        assertThat(result.getFunctionType()).isSameAs(ControlFunctionType.CONTROL_SEQUENCE);
+        assertThat(result.getFunction()).isSameAs(C1ControlFunction.CSI);
+    }
+
     /* 8 BIT */
 
     @Test
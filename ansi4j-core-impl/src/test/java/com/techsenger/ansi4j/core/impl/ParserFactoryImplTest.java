@@ -0,0 +1,72 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.impl;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import com.techsenger.ansi4j.core.api.Environment;
+import com.techsenger.ansi4j.core.api.FunctionHandler;
+import com.techsenger.ansi4j.core.api.FunctionHandlerResult;
+import com.techsenger.ansi4j.core.api.function.FunctionType;
+import com.techsenger.ansi4j.core.api.iso6429.ControlFunction;
+import com.techsenger.ansi4j.core.api.iso6429.ControlFunctionType;
+import com.techsenger.ansi4j.core.api.spi.ParserFactoryConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ *
+ * @author Pavel Castornii
+ */
+public class ParserFactoryImplTest {
+
+    private static final FunctionType CUSTOM_TYPE = new FunctionType() { };
+
+    @Test
+    public void getFunctionHandler_controlAndCustomTypes_sameAsHandlersByType() {
+        var customHandler = new FunctionHandler() {
+
+            @Override
+            public FunctionType getFunctionType() {
+                return CUSTOM_TYPE;
+            }
+
+            @Override
+            public void initialize(Environment environment) {
+
+            }
+
+            @Override
+            public FunctionHandlerResult handle(CharSequence text, int startIndex, ControlFunction function,
+                    int currentIndex) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        var config = new ParserFactoryConfig();
+        config.setEnvironment(Environment._7_BIT);
+        config.setFunctionTypes(List.of(ControlFunctionType.CONTROL_SEQUENCE, ControlFunctionType.C0_SET));
+        config.setFunctionHandlers(List.of(customHandler));
+        var factory = new ParserFactoryImpl(config);
+        var handlersByType = factory.getFunctionHandlersByType();
+        assertThat(handlersByType).hasSize(3);
+        for (var type : ControlFunctionType.values()) {
+            assertThat(factory.getFunctionHandler(type)).isSameAs(handlersByType.get(type));
+        }
+        assertThat(factory.getFunctionHandler(ControlFunctionType.C1_SET)).isNull();
+        assertThat(factory.getFunctionHandler(CUSTOM_TYPE)).isSameAs(customHandler);
+        assertThat(factory.getFunctionHandlersByType()).isSameAs(handlersByType);
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.impl;
+
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ *
+ * @author Pavel Castornii
+ */
+public class RateLimitedFailureLoggerTest {
+
+    @Test
+    public void tryLog_limitReached_failuresSuppressed() {
+        var logger = new RateLimitedFailureLogger(2, Long.MAX_VALUE);
+        assertThat(logger.tryLog()).isTrue();
+        assertThat(logger.tryLog()).isTrue();
+        assertThat(logger.tryLog()).isFalse();
+        assertThat(logger.tryLog()).isFalse();
+        assertThat(logger.getSuppressedCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void tryLog_periodOver_limitReset() {
+        var logger = new RateLimitedFailureLogger(1, 0);
+        for (var i = 0; i < 5; i++) {
+            assertThat(logger.tryLog()).isTrue();
+        }
+        assertThat(logger.getSuppressedCount()).isEqualTo(0);
+    }
+}
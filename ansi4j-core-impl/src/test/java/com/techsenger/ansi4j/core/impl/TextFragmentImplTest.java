@@ -0,0 +1,39 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.techsenger.ansi4j.core.impl;
+
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ *
+ * @author Pavel Castornii
+ */
+public class TextFragmentImplTest {
+
+    @Test
+    public void getTextView_textCreated_sourceNotUsed() {
+        var source = new StringBuilder("abcdef");
+        var fragment = new TextFragmentImpl(source, 1, 4, 10);
+        assertThat(fragment.getTextView().toString()).isEqualTo("bcd");
+        assertThat(fragment.getText()).isEqualTo("bcd");
+        source.setLength(0);
+        assertThat(fragment.getTextView()).isEqualTo("bcd");
+        assertThat(fragment.getText()).isEqualTo("bcd");
+        assertThat(fragment.getStartIndex()).isEqualTo(10);
+        assertThat(fragment.getEndIndex()).isEqualTo(13);
+    }
+}
@@ -63,4 +63,11 @@ public class ControlSequenceMatcherTest {
         var descriptor = matcher.match(3, "abc" + Characters.ESC + "[28;14 T");
         assertThat(descriptor.getFunction()).isSameAs(ControlSequenceFunction.DTA);
     }
+
+    @Test
+    public void matchFinalByte_finalByte_sameAsMatch() {
+        assertThat(matcher.matchFinalByte('H')).isSameAs(matcher.match(0, Characters.ESC + "[1;2H"));
+        assertThat(matcher.matchFinalByte('H').getFunction()).isSameAs(ControlSequenceFunction.CUP);
+        assertThat(matcher.matchFinalByte('T').getFunction()).isSameAs(ControlSequenceFunction.SD);
+    }
 }
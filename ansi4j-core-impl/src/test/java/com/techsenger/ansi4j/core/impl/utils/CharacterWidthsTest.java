@@ -0,0 +1,56 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.core.impl.utils;
+
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ *
+ * @author Pavel Castornii
+ */
+public class CharacterWidthsTest {
+
+    @Test
+    public void getWidth_narrowCharacters_oneColumn() {
+        assertThat(CharacterWidths.getWidth('a')).isEqualTo(1);
+        assertThat(CharacterWidths.getWidth('п')).isEqualTo(1);
+        assertThat(CharacterWidths.getWidth('­')).isEqualTo(1);
+        assertThat(CharacterWidths.getWidth(0x10000)).isEqualTo(1);
+    }
+
+    @Test
+    public void getWidth_wideCharacters_twoColumns() {
+        assertThat(CharacterWidths.getWidth('中')).isEqualTo(2);
+        assertThat(CharacterWidths.getWidth('가')).isEqualTo(2);
+        assertThat(CharacterWidths.getWidth('Ａ')).isEqualTo(2);
+        assertThat(CharacterWidths.getWidth(0x1F600)).isEqualTo(2);
+        assertThat(CharacterWidths.getWidth(0x20000)).isEqualTo(2);
+    }
+
+    @Test
+    public void getWidth_controlsAndZeroWidthCharacters_zeroColumns() {
+        assertThat(CharacterWidths.getWidth('\u0007')).isEqualTo(0);
+        assertThat(CharacterWidths.getWidth('\u007f')).isEqualTo(0);
+        assertThat(CharacterWidths.getWidth('\u009b')).isEqualTo(0);
+        assertThat(CharacterWidths.getWidth('́')).isEqualTo(0);
+        assertThat(CharacterWidths.getWidth('​')).isEqualTo(0);
+        assertThat(CharacterWidths.getWidth('‍')).isEqualTo(0);
+        assertThat(CharacterWidths.getWidth('ᅠ')).isEqualTo(0);
+        assertThat(CharacterWidths.getWidth(0xE0001)).isEqualTo(0);
+    }
+}
@@ -17,6 +17,7 @@
 open module com.techsenger.ansi4j.core.impl {
     requires com.techsenger.ansi4j.core.api;
     requires org.slf4j;
+    requires jdk.jfr;
 
     requires org.junit.jupiter.api;
     requires org.assertj.core;
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.techsenger.ansi4j.core.it;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import com.techsenger.ansi4j.core.api.Environment;
+import com.techsenger.ansi4j.core.api.Fragment;
+import com.techsenger.ansi4j.core.api.FragmentType;
+import com.techsenger.ansi4j.core.api.ParserFactory;
+import com.techsenger.ansi4j.core.api.iso6429.C0ControlFunction;
+import com.techsenger.ansi4j.core.api.iso6429.ControlFunctionType;
+import com.techsenger.ansi4j.core.api.iso6429.ControlSequenceFunction;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Simple benchmarks that are run only when `ansi4j.benchmark` system property is true, for example:
+ * {@code mvn test -pl ansi4j-core-it -Dtest=ParserBenchmarkIT -Dansi4j.benchmark=true}.
+ *
+ * @author Pavel Castornii
+ */
+@EnabledIfSystemProperty(named = "ansi4j.benchmark", matches = "true")
+public class ParserBenchmarkIT {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParserBenchmarkIT.class);
+
+    private static final int LINE_COUNT = 20_000;
+
+    private static final int PLAIN_TEXT_LENGTH = 8 * 1024 * 1024;
+
+    private static final int LONG_FUNCTION_LENGTH = 200_000;
+
+    private static final int WARMUP_ITERATIONS = 20;
+
+    private static final int ITERATIONS = 20;
+
+    private static ParserFactory factory;
+
+    @BeforeAll
+    public static void init() {
+        factory = new ParserFactory.Builder()
+            .environment(Environment._7_BIT)
+            .functionTypes(
+                    ControlFunctionType.C0_SET,
+                    ControlFunctionType.C1_SET,
+                    ControlFunctionType.CONTROL_SEQUENCE,
+                    ControlFunctionType.INDEPENDENT_FUNCTION,
+                    ControlFunctionType.CONTROL_STRING)
+            .build();
+    }
+
+    /**
+     * Compares SGR sequences with the sequences that have the same arguments, but other final byte (CUP), to check
+     * that other sequences don't pay for the path of SGR.
+     */
+    @Test
+    public void parse_sgrAndGenericSequences_printsTime() {
+        var sgrText = createText('m');
+        var genericText = createText('H');
+        //both paths are warmed up first, so the compiled code isn't specialized for the text measured first
+        this.measure(sgrText);
+        this.measure(genericText);
+        var sgrTime = this.measure(sgrText);
+        var genericTime = this.measure(genericText);
+        logger.info("SGR sequences: {} ns per line, generic sequences: {} ns per line", sgrTime / LINE_COUNT,
+                genericTime / LINE_COUNT);
+    }
+
+    /**
+     * Compares parsing of all functions with parsing when only SGR and LF are interesting and other functions are
+     * dropped.
+     */
+    @Test
+    public void parse_notInterestingFunctions_printsTime() {
+        var text = createText('H');
+        var filteringFactory = new ParserFactory.Builder()
+            .environment(Environment._7_BIT)
+            .functionTypes(ControlFunctionType.values())
+            .interestedIn(ControlSequenceFunction.SGR, C0ControlFunction.LF)
+            .build();
+        var allTime = this.measure(text);
+        var filteredTime = this.measure(() -> {
+            var parser = filteringFactory.createParser(text);
+            while (parser.parse() != null) {
+                //all fragments are skipped
+            }
+        });
+        logger.info("All functions: {} ns per line, only SGR and LF: {} ns per line", allTime / LINE_COUNT,
+                filteredTime / LINE_COUNT);
+    }
+
+    /**
+     * Compares stripping functions with appending the text of text fragments returned by string parser.
+     */
+    @Test
+    public void strip_sgrText_printsSpeed() {
+        var text = createText('m');
+        var output = new StringBuilder(text.length());
+        var parseTime = this.measure(() -> {
+            output.setLength(0);
+            var parser = factory.createParser(text);
+            Fragment fragment;
+            while ((fragment = parser.parse()) != null) {
+                if (fragment.getType() == FragmentType.TEXT) {
+                    output.append(fragment.getText());
+                }
+            }
+        });
+        var expected = output.toString();
+        var stripTime = this.measure(() -> {
+            output.setLength(0);
+            try {
+                factory.strip(text, output);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        assertThat(output.toString()).isEqualTo(expected);
+        logger.info("Text of {} chars: parsing {} MB/s, stripping {} MB/s", text.length(),
+                getSpeed(text.length(), parseTime), getSpeed(text.length(), stripTime));
+    }
+
+    /**
+     * Compares parsing of text without control functions with copying the same bytes.
+     */
+    @Test
+    public void parse_plainText_printsSpeed() {
+        var bytes = "The quick brown fox jumps over the lazy dog. ".repeat(PLAIN_TEXT_LENGTH / 45)
+                .getBytes(StandardCharsets.US_ASCII);
+        var text = new String(bytes, StandardCharsets.US_ASCII);
+        var copy = new byte[bytes.length];
+        var copyTime = this.measure(() -> System.arraycopy(bytes, 0, copy, 0, bytes.length));
+        var byteTime = this.measure(() -> {
+            var parser = factory.createParser(ByteBuffer.wrap(bytes), StandardCharsets.US_ASCII);
+            assertThat(parser.parse().getType()).isEqualTo(FragmentType.TEXT);
+            assertThat(parser.parse()).isNull();
+        });
+        var charTime = this.measure(() -> {
+            var parser = factory.createParser(text);
+            assertThat(parser.parse().getType()).isEqualTo(FragmentType.TEXT);
+            assertThat(parser.parse()).isNull();
+        });
+        logger.info("Plain text of {} bytes: copy {} MB/s, byte parser {} MB/s, string parser {} MB/s", bytes.length,
+                getSpeed(bytes.length, copyTime), getSpeed(bytes.length, byteTime), getSpeed(bytes.length, charTime));
+    }
+
+    /**
+     * Parses a long control string that is received by small portions.
+     */
+    @Test
+    public void parse_longControlStringInSmallReads_printsTime() {
+        var bytes = ("\u001b]0;" + "x".repeat(LONG_FUNCTION_LENGTH) + "\u001b\\").getBytes(StandardCharsets.US_ASCII);
+        var time = this.measure(() -> {
+            var parser = factory.createParser(new ByteArrayInputStream(bytes), StandardCharsets.US_ASCII, 256);
+            assertThat(parser.parse().getType()).isEqualTo(FragmentType.FUNCTION);
+            assertThat(parser.parse()).isNull();
+        });
+        logger.info("Control string of {} chars in reads of 256 bytes: {} us", bytes.length, time / 1000);
+    }
+
+    private static String createText(char finalByte) {
+        var builder = new StringBuilder();
+        for (var i = 0; i < LINE_COUNT; i++) {
+            builder.append("2022-03-14 02:32:24.130 \u001b[1;31").append(finalByte).append("ERROR")
+                    .append("\u001b[0").append(finalByte).append(" [main] com.techsenger.Test - ")
+                    .append("\u001b[38;5;208").append(finalByte).append("value=").append(i)
+                    .append("\u001b[38;2;10;20;30").append(finalByte).append(" done")
+                    .append("\u001b[").append(finalByte).append('\n');
+        }
+        return builder.toString();
+    }
+
+    private long measure(String text) {
+        return this.measure(() -> {
+            var parser = factory.createParser(text);
+            var count = 0;
+            while (parser.parse() != null) {
+                count++;
+            }
+            assertThat(count).isEqualTo(LINE_COUNT * 11);
+        });
+    }
+
+    /**
+     * Returns the best time of running the task in nanoseconds.
+     */
+    private long measure(Runnable task) {
+        var best = Long.MAX_VALUE;
+        for (var i = 0; i < WARMUP_ITERATIONS + ITERATIONS; i++) {
+            var start = System.nanoTime();
+            task.run();
+            var time = System.nanoTime() - start;
+            if (i >= WARMUP_ITERATIONS) {
+                best = Math.min(best, time);
+            }
+        }
+        return best;
+    }
+
+    private static long getSpeed(int length, long time) {
+        return length * 1_000_000_000L / time / (1024 * 1024);
+    }
+}
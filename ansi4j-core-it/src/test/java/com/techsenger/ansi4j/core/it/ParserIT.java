@@ -18,17 +18,44 @@ package com.techsenger.ansi4j.core.it;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.Test;
 import com.techsenger.ansi4j.core.api.ParserFactory;
+import com.techsenger.ansi4j.core.api.CountingParserMetrics;
+import com.techsenger.ansi4j.core.api.FailureListener;
+import com.techsenger.ansi4j.core.api.FailureReason;
+import com.techsenger.ansi4j.core.api.FunctionFailureReason;
+import com.techsenger.ansi4j.core.api.ControlStringConsumer;
 import com.techsenger.ansi4j.core.api.Fragment;
+import com.techsenger.ansi4j.core.api.FragmentVisitor;
+import com.techsenger.ansi4j.core.api.function.Function;
+import com.techsenger.ansi4j.core.api.function.FunctionArguments;
 import com.techsenger.ansi4j.core.api.TextFragment;
 import com.techsenger.ansi4j.core.api.utils.Characters;
 import com.techsenger.ansi4j.core.api.FragmentType;
 import com.techsenger.ansi4j.core.api.FunctionFragment;
+import com.techsenger.ansi4j.core.api.IgnoredFunctionAction;
 import com.techsenger.ansi4j.core.api.iso6429.ControlSequenceFunction;
+import com.techsenger.ansi4j.core.api.iso6429.ControlFunction;
 import com.techsenger.ansi4j.core.api.Environment;
 import com.techsenger.ansi4j.core.api.iso6429.C0ControlFunction;
 import com.techsenger.ansi4j.core.api.iso6429.C1ControlFunction;
@@ -38,8 +65,11 @@ import com.techsenger.ansi4j.core.api.StreamParser;
 import com.techsenger.ansi4j.core.api.iso6429.ControlFunctionType;
 import static org.assertj.core.api.Assertions.assertThat;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 /**
@@ -60,6 +90,43 @@ public class ParserIT {
         Parser provide(String text);
     }
 
+    /**
+     * Saves events and joins the parts of every control string.
+     */
+    private static class TestControlStringConsumer implements ControlStringConsumer {
+
+        private final List<String> events;
+
+        private StringBuilder payload;
+
+        private int maxPartLength;
+
+        TestControlStringConsumer(List<String> events) {
+            this.events = events;
+        }
+
+        @Override
+        public void onStart(ControlFunction function, int startIndex) {
+            this.events.add("start " + function + " " + startIndex);
+            this.payload = new StringBuilder();
+        }
+
+        @Override
+        public void onPayload(CharSequence source, int startIndex, int endIndex) {
+            this.payload.append(source, startIndex, endIndex);
+            this.maxPartLength = Math.max(this.maxPartLength, endIndex - startIndex);
+        }
+
+        @Override
+        public void onEnd(int endIndex) {
+            this.events.add(this.payload.toString());
+            this.events.add("end " + endIndex);
+        }
+    }
+
+    private static final String STRIP_TEXT = "line \u001b[1;31mred\u001b[0m \u043f\u0440\u0438\ud83d\ude00"
+            + "\u001b]0;title\u001b\\\u0007\u001b[5;5\u007e\u001bcend\n\u001b[38;2;1;2;3mx\u001b]0;no end";
+
     private static ParserFactory factory7Bit;
 
     private static ParserFactory factory8Bit;
@@ -89,6 +156,10 @@ public class ParserIT {
 
     protected static List<ParserProvider> provide7BitParsers() {
         return List.of((text) -> factory7Bit.createParser(text),
+                        (text) -> factory7Bit.createParser(new StringBuilder(text)),
+                        (text) -> factory7Bit.createParser(CharBuffer.wrap(text)),
+                        (text) -> factory7Bit.createParser(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)),
+                                StandardCharsets.UTF_8),
                         (text) -> factory7Bit.createParser(
                                 new ByteArrayInputStream(text.getBytes()),
                                 StandardCharsets.UTF_8,
@@ -97,6 +168,10 @@ public class ParserIT {
 
     protected static List<ParserProvider> provide8BitParsers() {
         return List.of((text) -> factory8Bit.createParser(text),
+                        (text) -> factory8Bit.createParser(new StringBuilder(text)),
+                        (text) -> factory8Bit.createParser(CharBuffer.wrap(text)),
+                        (text) -> factory8Bit.createParser(ByteBuffer.wrap(text.getBytes(StandardCharsets.ISO_8859_1)),
+                                StandardCharsets.ISO_8859_1),
                         (text) -> factory8Bit.createParser(
                                 new ByteArrayInputStream(text.getBytes()),
                                 StandardCharsets.UTF_8,
@@ -240,6 +315,49 @@ public class ParserIT {
         this.closeParser(parser);
     }
 
+    @ParameterizedTest
+    @MethodSource(_7_BIT_PARSER_PROVIDER)
+    public void parse_intArguments_sameAsArgumentList(ParserProvider parserProvider) {
+        var text = "\u001b[;38;2;10;200;3000m\u001b[?25h";
+        var parser = parserProvider.provide(text);
+        var f0 = (FunctionFragment) parser.parse();
+        assertThat(f0.getArgumentCount()).isEqualTo(6);
+        var values = new ArrayList<Integer>();
+        for (var i = 0; i < f0.getArgumentCount(); i++) {
+            assertThat(f0.isIntArgument(i)).isTrue();
+            assertThat(f0.isDefaultArgument(i)).isEqualTo(f0.getArguments().get(i).isDefault());
+            values.add(f0.getIntArgument(i));
+        }
+        assertThat(values).containsExactly(0, 38, 2, 10, 200, 3000);
+        assertThat(f0.isDefaultArgument(0)).isTrue();
+        assertThat(f0.getArguments()).extracting(a -> a.getValue()).containsExactly(0, 38, 2, 10, 200, 3000);
+        var f1 = (FunctionFragment) parser.parse();
+        assertThat(f1.getArgumentCount()).isEqualTo(1);
+        assertThat(f1.isIntArgument(0)).isFalse();
+        assertThat(f1.getArguments().get(0).getValue()).isEqualTo("?25");
+        this.closeParser(parser);
+    }
+
+    @ParameterizedTest
+    @MethodSource(_7_BIT_PARSER_PROVIDER)
+    public void parse_sgrWithDefaultAndTooBigArguments_success(ParserProvider parserProvider) {
+        var text = "\u001b[;99999999999m\u001b[1;m";
+        var parser = parserProvider.provide(text);
+        var f0 = (FunctionFragment) parser.parse();
+        assertThat(f0.getFunction()).isEqualTo(ControlSequenceFunction.SGR);
+        assertThat(f0.getEndIndex()).isEqualTo(15);
+        assertThat(f0.getArgumentCount()).isEqualTo(2);
+        assertThat(f0.isDefaultArgument(0)).isTrue();
+        assertThat(f0.getIntArgument(0)).isEqualTo(0);
+        assertThat(f0.isIntArgument(1)).isFalse();
+        assertThat(f0.getArguments().get(1).getValue()).isEqualTo("99999999999");
+        //the second argument has no default value
+        var f1 = parser.parse();
+        assertThat(f1.getType()).isEqualTo(FragmentType.TEXT);
+        assertThat(f1.getText()).isEqualTo("\u001b[1;m");
+        this.closeParser(parser);
+    }
+
     @ParameterizedTest
     @MethodSource(_7_BIT_PARSER_PROVIDER)
     public void parse_c0In7bitEnv_success(ParserProvider parserProvider) {
@@ -579,6 +697,30 @@ public class ParserIT {
         this.closeParser(parser);
     }
 
+    @Test
+    public void parse_longFunctionsInSmallReads_success() throws IOException {
+        var text = "one\u001b]0;" + "x".repeat(50_000) + "\u001b\\two\u001b[" + "1;".repeat(1_000) + "1mthree";
+        var functions = new ArrayList<FunctionFragment>();
+        var builder = new StringBuilder();
+        try (var parser = factory7Bit.createParser(new ByteArrayInputStream(text.getBytes()), StandardCharsets.UTF_8,
+                7)) {
+            Fragment fragment = null;
+            while ((fragment = parser.parse()) != null) {
+                builder.append(fragment.getText());
+                if (fragment.getType() == FragmentType.FUNCTION) {
+                    functions.add((FunctionFragment) fragment);
+                }
+            }
+        }
+        assertThat(builder.toString()).isEqualTo(text);
+        assertThat(functions).hasSize(2);
+        assertThat(functions.get(0).getFunction()).isSameAs(C1ControlFunction.OSC);
+        assertThat(functions.get(0).getStartIndex()).isEqualTo(3);
+        assertThat(functions.get(0).getArgumentCount()).isEqualTo(2);
+        assertThat(functions.get(1).getFunction()).isSameAs(ControlSequenceFunction.SGR);
+        assertThat(functions.get(1).getArgumentCount()).isEqualTo(1_001);
+    }
+
     @Test
     public void parse_controlStringIn8bitEnvAsStream_success() {
          var text = "one two three \u009d4;6;some text\u009c abc.def.0123.ghi";
@@ -626,6 +768,1188 @@ public class ParserIT {
         this.closeParser(parser);
     }
 
+    @Test
+    public void parse_manyFunctions_fragmentsCoverWholeText() {
+        var text = createManyFunctionsText();
+        checkManyFunctionsText(text, factory7Bit.createParser(text));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 7, 64, 1024})
+    public void parse_manyFunctionsInStream_fragmentsCoverWholeText(int bufferSize) throws IOException {
+        var text = createManyFunctionsText();
+        try (var parser = factory7Bit.createParser(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8, bufferSize)) {
+            checkManyFunctionsText(text, parser);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 5, 64, 4096})
+    public void parse_manyFunctionsInFile_positionsAreBytePositions(int windowSize, @TempDir Path dir)
+            throws IOException {
+        var builder = new StringBuilder();
+        for (var i = 0; i < 300; i++) {
+            builder.append("\u0441\u0442\u0440\u043e\u043a\u0430 ").append(i).append(" \u001b[3").append(i % 8)
+                    .append("m\ud83d\ude00\u001b[0m")
+                    .append("\u001b]0;\u0437\u0430\u0433\u043e\u043b\u043e\u0432\u043e\u043a\u001b\\\n");
+        }
+        var text = builder.toString();
+        var file = dir.resolve("log.txt");
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+        try (var parser = factory7Bit.createParser(file, StandardCharsets.UTF_8, windowSize)) {
+            var parsedText = new StringBuilder();
+            var parsedLength = 0L;
+            var functionCount = 0;
+            Fragment fragment = null;
+            while ((fragment = parser.parse()) != null) {
+                assertThat(fragment.getStartPosition()).isEqualTo(parsedLength);
+                parsedLength += fragment.getText().getBytes(StandardCharsets.UTF_8).length;
+                assertThat(fragment.getEndPosition()).isEqualTo(parsedLength);
+                parsedText.append(fragment.getText());
+                if (fragment.getType() == FragmentType.FUNCTION) {
+                    functionCount++;
+                }
+            }
+            assertThat(parsedText.toString()).isEqualTo(text);
+            //SGR, SGR, OSC and LF
+            assertThat(functionCount).isEqualTo(1200);
+            assertThat(parser.getCurrentPosition()).isEqualTo(Files.size(file));
+        }
+    }
+
+    @Test
+    public void parse_fileOfManyWindows_indexesInWindowAndPositionsInFile(@TempDir Path dir) throws IOException {
+        var text = "line \u001b[31mred\u001b[0m\n".repeat(200) + "end \u001b[1mbold\u001b[0m";
+        var file = dir.resolve("log.txt");
+        Files.writeString(file, text, StandardCharsets.US_ASCII);
+        var windowSize = 64;
+        try (var parser = factory7Bit.createParser(file, StandardCharsets.US_ASCII, windowSize)) {
+            Fragment fragment = null;
+            Fragment lastFunction = null;
+            var windowPosition = 0L;
+            while ((fragment = parser.parse()) != null) {
+                if (fragment.getType() == FragmentType.FUNCTION) {
+                    lastFunction = fragment;
+                    windowPosition = parser.getCurrentPosition() - parser.getCurrentIndex();
+                }
+            }
+            var position = text.lastIndexOf("\u001b[0m");
+            assertThat(lastFunction.getText()).isEqualTo("\u001b[0m");
+            assertThat(lastFunction.getStartPosition()).isEqualTo(position);
+            assertThat(lastFunction.getEndPosition()).isEqualTo(position + 4);
+            //int indexes are relative to the window
+            assertThat(windowPosition).isGreaterThan(windowSize);
+            assertThat(lastFunction.getStartIndex()).isEqualTo(position - windowPosition);
+            assertThat(lastFunction.getEndIndex()).isEqualTo(position + 4 - windowPosition);
+            assertThat(lastFunction.getStartIndex()).isLessThan(2 * windowSize);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 10, 97, 1000, 100000})
+    public void parseParallel_mixedFunctions_sameAsStringParser(int chunkSize) {
+        var builder = new StringBuilder();
+        for (var i = 0; i < 200; i++) {
+            builder.append("line ").append(i).append(" \u001b[3").append(i % 8).append(";1mcolored\u001b[0m ");
+            if (i % 7 == 0) {
+                builder.append("\u001b]0;long title ").append("x".repeat(i)).append("\u001b\\");
+            }
+            if (i % 11 == 0) {
+                //unknown function and function without end
+                builder.append("\u001b[5;5\u007e").append("\u001b]0;no end ");
+            }
+            builder.append("\ud83d\ude00\n");
+        }
+        var text = builder.toString();
+        var pool = new ForkJoinPool(4);
+        try {
+            checkParallelResult(text, factory7Bit, pool, chunkSize);
+            checkParallelResult(text.replace("\u001b]", "\u009d").replace("\u001b\\", "\u009c"), factory8Bit, pool,
+                    chunkSize);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 10, 97, 100000})
+    public void parseParallel_failuresAndMetrics_reportedOnceAsByStringParser(int chunkSize) {
+        var builder = new StringBuilder();
+        for (var i = 0; i < 100; i++) {
+            builder.append("line ").append(i).append(" \u001b[3").append(i % 8).append(";1mcolored\u001b[0m ");
+            if (i % 5 == 0) {
+                //limit exceeded and unknown function
+                builder.append("\u001b[1;2;3;4;5m").append("\u001b[5;5\u007e");
+            }
+            if (i % 13 == 0) {
+                builder.append("\u001b]0;no end ");
+            }
+            builder.append('\n');
+        }
+        var text = builder.toString();
+        var expectedFailures = new ArrayList<String>();
+        var expectedMetrics = new CountingParserMetrics();
+        var expected = parseAll(createFailureFactory(expectedFailures, expectedMetrics).createParser(text));
+        var actualFailures = new ArrayList<String>();
+        var actualMetrics = new CountingParserMetrics();
+        var pool = new ForkJoinPool(4);
+        try {
+            var actual = createFailureFactory(actualFailures, actualMetrics).parseParallel(text, pool, chunkSize);
+            checkSameFragments(actual, expected);
+        } finally {
+            pool.shutdown();
+        }
+        assertThat(expectedFailures).hasSize(48);
+        assertThat(actualFailures).isEqualTo(expectedFailures);
+        assertThat(actualMetrics.getParsedCharCount()).isEqualTo(expectedMetrics.getParsedCharCount());
+        assertThat(actualMetrics.getTextCount()).isEqualTo(expectedMetrics.getTextCount());
+        assertThat(actualMetrics.getFunctionCounts()).isEqualTo(expectedMetrics.getFunctionCounts());
+        assertThat(actualMetrics.getFailureCount()).isEqualTo(expectedMetrics.getFailureCount());
+        assertThat(actualMetrics.getDelayCount()).isEqualTo(expectedMetrics.getDelayCount());
+    }
+
+    @Test
+    public void stream_parallelStringParser_sameAsSequentialParsing() {
+        var builder = new StringBuilder();
+        for (var i = 0; i < 3000; i++) {
+            builder.append("line ").append(i).append(" \u001b[3").append(i % 8).append(";1mcolored\u001b[0m ");
+            if (i % 13 == 0) {
+                //control string with functions inside
+                builder.append("\u001b]0;title \u001b[31m").append("x".repeat(i % 500)).append("\u001b\\");
+            }
+            if (i % 17 == 0) {
+                builder.append("\u001b[5;5\u007e\u001b[1;");
+            }
+            builder.append("\ud83d\ude00\n");
+        }
+        builder.append("\u001bPno end \u001b[0m");
+        var text = builder.toString();
+        checkParallelStream(text, factory7Bit);
+        checkParallelStream(text.replace("\u001b]", "\u009d").replace("\u001b\\", "\u009c")
+                .replace("\u001bP", "\u0090"), factory8Bit);
+    }
+
+    @Test
+    public void visit_mixedFunctions_sameAsStringParser() {
+        var text = "\u001bc\u001b[38;2;10;20;30mtext\u001b[;5H\u001b[1;\u001b[m\u001b[2 q"
+                + "\u001b]0;title;;x\u001b\\\n\u001b[5;5\u007e\u001bE\u001b[1;31mend\u001b]0;no end";
+        var expected = new ArrayList<String>();
+        var parser = factory7Bit.createParser(text);
+        Fragment fragment = null;
+        while ((fragment = parser.parse()) != null) {
+            var builder = new StringBuilder().append(fragment.getStartIndex()).append('-')
+                    .append(fragment.getEndIndex());
+            if (fragment.getType() == FragmentType.FUNCTION) {
+                var functionFragment = (FunctionFragment) fragment;
+                builder.append(' ').append(functionFragment.getFunction());
+                if (functionFragment.getArguments() != null) {
+                    for (var argument : functionFragment.getArguments()) {
+                        builder.append(' ').append(argument.getValue()).append(argument.isDefault() ? "d" : "");
+                    }
+                }
+            }
+            expected.add(builder.toString());
+        }
+        var actual = new ArrayList<String>();
+        factory7Bit.visit(text, new FragmentVisitor() {
+
+            @Override
+            public void onText(CharSequence source, int startIndex, int endIndex) {
+                actual.add(startIndex + "-" + endIndex);
+            }
+
+            @Override
+            public void onFunction(Function function, CharSequence source, int startIndex, int endIndex,
+                    FunctionArguments arguments) {
+                var builder = new StringBuilder().append(startIndex).append('-').append(endIndex).append(' ')
+                        .append(function);
+                for (var i = 0; i < arguments.getCount(); i++) {
+                    var value = arguments.isInt(i) ? arguments.getInt(i) : arguments.getValue(i);
+                    builder.append(' ').append(value).append(arguments.isDefault(i) ? "d" : "");
+                }
+                actual.add(builder.toString());
+            }
+        });
+        assertThat(actual).containsExactlyElementsOf(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 7, 64, 100000})
+    public void feed_manyFunctionsInChunks_fragmentsCoverWholeText(int chunkSize) throws IOException {
+        var text = createManyFunctionsText() + "\u043a\u043e\u043d\u0435\u0446\ud83d\ude00\u001b]0;no end";
+        var bytes = text.getBytes(StandardCharsets.UTF_8);
+        var byteFragments = new ArrayList<Fragment>();
+        var byteParser = factory7Bit.createParser(byteFragments::add, StandardCharsets.UTF_8, 16);
+        for (var i = 0; i < bytes.length; i += chunkSize) {
+            var chunk = ByteBuffer.wrap(bytes, i, Math.min(chunkSize, bytes.length - i));
+            byteParser.feed(chunk);
+            assertThat(chunk.hasRemaining()).isFalse();
+        }
+        byteParser.endOfInput();
+        var chars = text.toCharArray();
+        var charFragments = new ArrayList<Fragment>();
+        var charParser = factory7Bit.createParser(charFragments::add, StandardCharsets.UTF_8, 16);
+        for (var i = 0; i < chars.length; i += chunkSize) {
+            charParser.feed(chars, i, Math.min(chunkSize, chars.length - i));
+        }
+        charParser.endOfInput();
+        for (var fragments : List.of(byteFragments, charFragments)) {
+            var parsedText = new StringBuilder();
+            var functionCount = 0;
+            for (var fragment : fragments) {
+                assertThat(fragment.getStartIndex()).isEqualTo(parsedText.length());
+                parsedText.append(fragment.getText());
+                if (fragment.getType() == FragmentType.FUNCTION) {
+                    functionCount++;
+                }
+            }
+            assertThat(parsedText.toString()).isEqualTo(text);
+            assertThat(functionCount).isEqualTo(3000);
+            assertThat(fragments.get(fragments.size() - 1).getText()).endsWith("\u001b]0;no end");
+        }
+        assertThat(byteParser.getCurrentIndex()).isEqualTo(text.length());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 16, 100000})
+    public void parse_functionWithoutEndAtEndOfStream_functionAndRestAreText(int bufferSize) throws IOException {
+        for (var text : List.of("a\u001b[1mb\u001b]0;no end\nline\n", "a\u001b]0;no end \u001b[2mb\u001b[3",
+                "\u001b[1mb\u001bP")) {
+            var expected = parseAll(factory7Bit.createParser(text));
+            var actual = parseStream(factory7Bit, text, bufferSize);
+            assertThat(actual.stream().map(Fragment::getText).collect(Collectors.joining())).isEqualTo(text);
+            //text before a delayed function is a separate fragment in buffered parsers
+            assertThat(actual.stream().filter(f -> f.getType() == FragmentType.FUNCTION)
+                    .map(f -> f.getStartIndex() + " " + f.getText()).collect(Collectors.toList()))
+                    .isEqualTo(expected.stream().filter(f -> f.getType() == FragmentType.FUNCTION)
+                            .map(f -> f.getStartIndex() + " " + f.getText()).collect(Collectors.toList()));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 7, 100000})
+    public void feed_controlStringConsumer_controlStringsGivenByParts(int chunkSize) throws IOException {
+        var payload = "x\u001bx;".repeat(20_000);
+        var text = "one\u001b]52;c;" + payload + "\u001b\\two\u001bPq\u001b\\three";
+        var events = new ArrayList<String>();
+        var fragments = new ArrayList<Fragment>();
+        var consumer = new TestControlStringConsumer(events);
+        var parser = factory7Bit.createParser(fragments::add, StandardCharsets.UTF_8, 16, consumer);
+        var chars = text.toCharArray();
+        for (var i = 0; i < chars.length; i += chunkSize) {
+            parser.feed(chars, i, Math.min(chunkSize, chars.length - i));
+        }
+        parser.endOfInput();
+        var end = 3 + 2 + 5 + payload.length() + 2;
+        assertThat(events).containsExactly("start OSC 3", "52;c;" + payload, "end " + end,
+                "start DCS " + (end + 3), "q", "end " + (end + 8));
+        assertThat(fragments.stream().map(Fragment::getText).collect(Collectors.joining())).isEqualTo("onetwothree");
+        for (var fragment : fragments) {
+            assertThat(text.substring(fragment.getStartIndex(), fragment.getEndIndex())).isEqualTo(fragment.getText());
+        }
+        if (chunkSize < 16) {
+            assertThat(consumer.maxPartLength).isLessThanOrEqualTo(32);
+        }
+    }
+
+    @Test
+    public void parse_controlStringConsumerInStream_controlStringGivenByParts() throws IOException {
+        var payload = "y".repeat(100_000);
+        var text = "one\u001b]0;" + payload + "\u001b\\two";
+        var events = new ArrayList<String>();
+        var consumer = new TestControlStringConsumer(events);
+        var fragments = new ArrayList<String>();
+        try (var parser = factory7Bit.createParser(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8, 64, consumer)) {
+            Fragment fragment = null;
+            while ((fragment = parser.parse()) != null) {
+                fragments.add(fragment.getText());
+            }
+        }
+        assertThat(String.join("", fragments)).isEqualTo("onetwo");
+        assertThat(events).containsExactly("start OSC 3", "0;" + payload, "end " + (text.length() - 3));
+        assertThat(consumer.maxPartLength).isLessThanOrEqualTo(128);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 64, 100000})
+    public void createPublisher_manyFunctionsInStream_fragmentsCoverWholeText(int batchSize) throws Exception {
+        var text = createManyFunctionsText();
+        var pool = new ForkJoinPool(4);
+        try (var parser = factory7Bit.createParser(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8, 64)) {
+            var fragments = new ArrayList<Fragment>();
+            var result = new CompletableFuture<List<Fragment>>();
+            factory7Bit.createPublisher(parser, pool, batchSize).subscribe(new Flow.Subscriber<Fragment>() {
+
+                private Flow.Subscription subscription;
+
+                private int remaining;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    this.remaining = 5;
+                    subscription.request(this.remaining);
+                }
+
+                @Override
+                public void onNext(Fragment item) {
+                    fragments.add(item);
+                    this.remaining--;
+                    if (this.remaining == 0) {
+                        this.remaining = fragments.size() % 7 + 1;
+                        this.subscription.request(this.remaining);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    result.completeExceptionally(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    result.complete(fragments);
+                }
+            });
+            var parsedText = new StringBuilder();
+            var functionCount = 0;
+            for (var fragment : result.get(10, TimeUnit.SECONDS)) {
+                assertThat(fragment.getStartIndex()).isEqualTo(parsedText.length());
+                parsedText.append(fragment.getText());
+                if (fragment.getType() == FragmentType.FUNCTION) {
+                    functionCount++;
+                }
+            }
+            assertThat(parsedText.toString()).isEqualTo(text);
+            assertThat(functionCount).isEqualTo(3000);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void createPublisher_limitedDemand_parsedOnlyRequestedFragments() {
+        var text = "abc\u001b[1mdef\u001b[0m";
+        var parser = factory7Bit.createParser(text);
+        var fragments = new ArrayList<Fragment>();
+        var subscriptions = new ArrayList<Flow.Subscription>();
+        var completed = new boolean[1];
+        factory7Bit.createPublisher(parser, Runnable::run, 16).subscribe(new Flow.Subscriber<Fragment>() {
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscriptions.add(subscription);
+            }
+
+            @Override
+            public void onNext(Fragment item) {
+                fragments.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) { }
+
+            @Override
+            public void onComplete() {
+                completed[0] = true;
+            }
+        });
+        var subscription = subscriptions.get(0);
+        subscription.request(2);
+        assertThat(fragments).hasSize(2);
+        assertThat(parser.getCurrentIndex()).isEqualTo(7);
+        subscription.request(Long.MAX_VALUE);
+        assertThat(fragments).hasSize(4);
+        assertThat(completed[0]).isTrue();
+    }
+
+    @Test
+    public void createPublisher_streamThrowsException_subscriberGetsError() throws Exception {
+        var exception = new IOException("Broken stream");
+        var stream = new InputStream() {
+
+            private int count = 0;
+
+            @Override
+            public int read() throws IOException {
+                if (this.count == 40) {
+                    throw exception;
+                }
+                this.count++;
+                return 'a';
+            }
+        };
+        var factory = new ParserFactory.Builder()
+                .environment(Environment._7_BIT)
+                .functionTypes(ControlFunctionType.values())
+                .failureListener(FailureListener.SILENT)
+                .build();
+        var fragments = new ArrayList<Fragment>();
+        var result = new CompletableFuture<Throwable>();
+        try (var parser = factory.createParser(stream, StandardCharsets.UTF_8, 16)) {
+            factory.createPublisher(parser, Runnable::run, 4).subscribe(new Flow.Subscriber<Fragment>() {
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(Fragment item) {
+                    fragments.add(item);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    result.complete(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    result.complete(null);
+                }
+            });
+        }
+        assertThat(result.get(10, TimeUnit.SECONDS)).isSameAs(exception);
+        assertThat(fragments.stream().map(Fragment::getText).collect(Collectors.joining())).isEqualTo("a".repeat(40));
+    }
+
+    @Test
+    public void parse_streamInLatin1_textDecodedWithEncoding() throws IOException {
+        var text = "caf\u00e9 \u001b[33;1mna\u00efve\u001b[0m";
+        try (var parser = factory7Bit.createParser(new ByteArrayInputStream(text.getBytes(StandardCharsets.ISO_8859_1)),
+                StandardCharsets.ISO_8859_1, 4)) {
+            var parsedText = new StringBuilder();
+            var functionCount = 0;
+            Fragment fragment = null;
+            while ((fragment = parser.parse()) != null) {
+                parsedText.append(fragment.getText());
+                if (fragment.getType() == FragmentType.FUNCTION) {
+                    functionCount++;
+                }
+            }
+            assertThat(parsedText.toString()).isEqualTo(text);
+            assertThat(functionCount).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void parse_malformedInputWithReportAction_parsingStopped() throws IOException {
+        var factory = new ParserFactory.Builder()
+                .environment(Environment._7_BIT)
+                .functionTypes(ControlFunctionType.CONTROL_SEQUENCE)
+                .codingErrorAction(CodingErrorAction.REPORT)
+                .build();
+        var bytes = new byte[] {'a', 'b', (byte) 0xFF, 'c'};
+        try (var parser = factory.createParser(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8, 1024)) {
+            assertThat(parser.parse()).isNull();
+        }
+        try (var parser = factory7Bit.createParser(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8, 1024)) {
+            assertThat(parser.parse().getText()).isEqualTo("ab\ufffdc");
+        }
+    }
+
+    @Test
+    public void parse_utf8Bytes_indexesAreByteIndexes() {
+        var text = "\u043f\u0440\u0438\u0432\u0435\u0442 \u001b[33;1m\u043c\u0438\u0440"
+                + "\u001b]0;\u0437\u0430\u0433\u043e\u043b\u043e\u0432\u043e\u043a\u001b\\";
+        var bytes = text.getBytes(StandardCharsets.UTF_8);
+        var parser = factory7Bit.createParser(ByteBuffer.wrap(bytes), StandardCharsets.UTF_8);
+        var fragments = new ArrayList<Fragment>();
+        Fragment fragment = null;
+        while ((fragment = parser.parse()) != null) {
+            fragments.add(fragment);
+        }
+        assertThat(fragments).hasSize(4);
+        assertThat(fragments.get(0).getText()).isEqualTo("\u043f\u0440\u0438\u0432\u0435\u0442 ");
+        assertThat(fragments.get(0).getEndIndex()).isEqualTo(13);
+        assertThat(((FunctionFragment) fragments.get(1)).getFunction()).isSameAs(ControlSequenceFunction.SGR);
+        assertThat(fragments.get(2).getText()).isEqualTo("\u043c\u0438\u0440");
+        var osc = (FunctionFragment) fragments.get(3);
+        assertThat(osc.getFunction()).isSameAs(C1ControlFunction.OSC);
+        assertThat(osc.getArguments().get(1).getValue())
+                .isEqualTo("\u0437\u0430\u0433\u043e\u043b\u043e\u0432\u043e\u043a\u001b\\");
+        assertThat(osc.getEndIndex()).isEqualTo(bytes.length);
+        var textBytes = parser.getBytes(fragments.get(2));
+        assertThat(textBytes.remaining()).isEqualTo(6);
+        assertThat(textBytes.isReadOnly()).isTrue();
+        assertThat(StandardCharsets.UTF_8.decode(textBytes).toString()).isEqualTo("\u043c\u0438\u0440");
+    }
+
+    @Test
+    public void parse_charBuffer_textViewsReadSource() {
+        var text = "abc\u001b[33;1mdef";
+        var buffer = CharBuffer.wrap(text.toCharArray());
+        var parser = factory7Bit.createParser(buffer);
+        var fragments = new ArrayList<Fragment>();
+        Fragment fragment = null;
+        while ((fragment = parser.parse()) != null) {
+            fragments.add(fragment);
+        }
+        assertThat(fragments).hasSize(3);
+        assertThat(fragments.get(0).getTextView().toString()).isEqualTo("abc");
+        assertThat(fragments.get(1).getTextView().toString()).isEqualTo("\u001b[33;1m");
+        assertThat(((FunctionFragment) fragments.get(1)).getArguments().get(0).getValue()).isEqualTo(33);
+        assertThat(fragments.get(2).getTextView().toString()).isEqualTo("def");
+        assertThat(fragments.get(2).getText()).isEqualTo("def");
+    }
+
+    @Test
+    public void strip_text_sameAsTextFragments() throws IOException {
+        var text = STRIP_TEXT.repeat(3);
+        var output = new StringBuilder("x");
+        factory7Bit.strip(text, output);
+        assertThat(output.toString()).isEqualTo("x" + getFragmentText(text));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 1000, 100000})
+    public void strip_streamReadByParts_sameAsStrippedText(int readSize) throws IOException {
+        var text = STRIP_TEXT.repeat(2000);
+        var bytes = text.getBytes(StandardCharsets.UTF_8);
+        var stream = new ByteArrayInputStream(bytes) {
+
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, readSize));
+            }
+
+            @Override
+            public synchronized int available() {
+                return 0;
+            }
+        };
+        var writer = new StringWriter();
+        factory7Bit.strip(stream, StandardCharsets.UTF_8, writer);
+        assertThat(writer.toString()).isEqualTo(getFragmentText(text));
+    }
+
+    @Test
+    public void visibleWidth_coloredText_widthOfTextWithoutFunctions() {
+        assertThat(factory7Bit.visibleWidth("")).isEqualTo(0);
+        assertThat(factory7Bit.visibleWidth("\u001b[1;31mred\u001b[0m")).isEqualTo(3);
+        assertThat(factory7Bit.visibleWidth("\u001b]0;title\u001b\\\u4e2d\u6587\u001b[0m\ud83d\ude00!"))
+                .isEqualTo(7);
+        assertThat(factory7Bit.visibleWidth("e\u0301\u200b\ta\u0007")).isEqualTo(2);
+        assertThat(factory8Bit.visibleWidth("\u009d0;title\u009cab\u0085")).isEqualTo(2);
+    }
+
+    @Test
+    public void visibleLength_controlCharacters_cursorMoved() {
+        assertThat(factory7Bit.visibleLength("a\tb", 8)).isEqualTo(9);
+        assertThat(factory7Bit.visibleLength("\u001b[31mabcdefgh\u001b[0m\tb", 8)).isEqualTo(17);
+        assertThat(factory7Bit.visibleLength("\u4e2d\t", 4)).isEqualTo(4);
+        assertThat(factory7Bit.visibleLength("long line\nshort\n", 8)).isEqualTo(9);
+        assertThat(factory7Bit.visibleLength("abc\rx", 8)).isEqualTo(3);
+        assertThat(factory7Bit.visibleLength("ab\b\bxyz", 8)).isEqualTo(3);
+        var factory = new ParserFactory.Builder()
+                .environment(Environment._7_BIT)
+                .functionTypes(ControlFunctionType.CONTROL_SEQUENCE)
+                .build();
+        assertThat(factory.visibleLength("\u001b[1ma\tb\nc", 4)).isEqualTo(5);
+    }
+
+    @Test
+    public void parse_resetParser_sameAsNewParser() {
+        var lines = List.of("abc\u001b[1mdef", "\u001b[33;1mxyz\u001b[0m", "", "\u001b]0;title\u001b\\end");
+        var parser = factory7Bit.createParser("\u001b[5;Rnot parsed till the end");
+        assertThat(parser.parse()).isNotNull();
+        for (var line : lines) {
+            parser.reset(line);
+            var expectedParser = factory7Bit.createParser(line);
+            Fragment expected;
+            do {
+                expected = expectedParser.parse();
+                var actual = parser.parse();
+                if (expected == null) {
+                    assertThat(actual).isNull();
+                } else {
+                    assertThat(actual.getType()).isSameAs(expected.getType());
+                    assertThat(actual.getText()).isEqualTo(expected.getText());
+                    assertThat(actual.getStartIndex()).isEqualTo(expected.getStartIndex());
+                    assertThat(actual.getEndIndex()).isEqualTo(expected.getEndIndex());
+                }
+            } while (expected != null);
+            assertThat(parser.getCurrentIndex()).isEqualTo(line.length());
+        }
+    }
+
+    @Test
+    public void parse_notInterestingFunctionsWithDropAction_functionsDropped() throws IOException {
+        var factory = new ParserFactory.Builder()
+                .environment(Environment._7_BIT)
+                .functionTypes(ControlFunctionType.values())
+                .interestedIn(ControlSequenceFunction.SGR, C0ControlFunction.LF)
+                .build();
+        var text = "a\u001b[1mb\u001b[2Jc\u001b]0;title\u001b\\\nd\u0007e\u001b[0m\u001b[K";
+        var fragments = parseAll(factory.createParser(text));
+        assertThat(fragments.stream().map(Fragment::getText).collect(Collectors.toList()))
+                .containsExactly("a", "\u001b[1m", "b", "c", "\n", "d", "e", "\u001b[0m");
+        for (var fragment : fragments) {
+            assertThat(fragment.getText()).isEqualTo(text.substring(fragment.getStartIndex(), fragment.getEndIndex()));
+        }
+        assertThat(((FunctionFragment) fragments.get(1)).getFunction()).isSameAs(ControlSequenceFunction.SGR);
+        assertThat(((FunctionFragment) fragments.get(4)).getFunction()).isSameAs(C0ControlFunction.LF);
+
+        try (var parser = factory.createParser(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8, 1024)) {
+            checkSameFragments(parseAll(parser), fragments);
+        }
+        try (var parser = factory.createParser(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8, 2)) {
+            assertThat(parseAll(parser).stream().map(Fragment::getText).collect(Collectors.joining()))
+                    .isEqualTo("a\u001b[1mbc\nde\u001b[0m");
+        }
+        var visited = new ArrayList<String>();
+        factory.visit(text, new FragmentVisitor() {
+
+            @Override
+            public void onText(CharSequence source, int startIndex, int endIndex) {
+                visited.add(source.subSequence(startIndex, endIndex).toString());
+            }
+
+            @Override
+            public void onFunction(Function function, CharSequence source, int startIndex, int endIndex,
+                    FunctionArguments arguments) {
+                visited.add(source.subSequence(startIndex, endIndex).toString());
+            }
+        });
+        assertThat(visited).containsExactlyElementsOf(fragments.stream().map(Fragment::getText)
+                .collect(Collectors.toList()));
+        var pool = new ForkJoinPool(4);
+        try {
+            for (var chunkSize : new int[] {1, 5, 100, 100000}) {
+                checkParallelResult(text.repeat(200), factory, pool, chunkSize);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void parse_notInterestingFunctionsWithTextAction_functionsBecomeText() {
+        var factory = new ParserFactory.Builder()
+                .environment(Environment._7_BIT)
+                .functionTypes(ControlFunctionType.values())
+                .interestedIn(ControlSequenceFunction.SGR, C0ControlFunction.LF)
+                .ignoredFunctionAction(IgnoredFunctionAction.TEXT)
+                .build();
+        var text = "a\u001b[1mb\u001b[2Jc\u001b]0;title\u001b\\\nd\u0007e\u001b[0m\u001b[K";
+        var fragments = parseAll(factory.createParser(text));
+        assertThat(fragments.stream().map(Fragment::getText).collect(Collectors.toList()))
+                .containsExactly("a", "\u001b[1m", "b\u001b[2Jc\u001b]0;title\u001b\\", "\n", "d\u0007e",
+                        "\u001b[0m", "\u001b[K");
+        var longText = text.repeat(1000);
+        var expected = parseAll(factory.createParser(longText));
+        checkSameFragments(factory.createParser(longText).stream().parallel().collect(Collectors.toList()),
+                expected);
+        var pool = new ForkJoinPool(4);
+        try {
+            for (var chunkSize : new int[] {1, 5, 100}) {
+                checkParallelResult(longText, factory, pool, chunkSize);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(IgnoredFunctionAction.class)
+    public void parse_limitsAndNotInterestingFunctions_sameResultInParserVisitAndStrip(
+            IgnoredFunctionAction action) throws IOException {
+        var factory = new ParserFactory.Builder()
+                .environment(Environment._7_BIT)
+                .functionTypes(ControlFunctionType.values())
+                .interestedIn(ControlSequenceFunction.SGR, C0ControlFunction.LF)
+                .ignoredFunctionAction(action)
+                .maxFunctionLength(12)
+                .maxArgumentCount(3)
+                .build();
+        var text = "x\u001b]0;aaaaaaaaaaaaaaaaaaaa\u001b\\y\u001b[31mz\u001b[1;2;3;4mw\u001b]0;t\u001b\\v\n"
+                + "\u001b[2Ju\u001b[1;2;3;4;5;6;7;8;9;10;11H";
+        var fragments = parseAll(factory.createParser(text));
+        var expected = new ArrayList<String>();
+        for (var fragment : fragments) {
+            if (fragment.getType() == FragmentType.TEXT) {
+                expected.add(fragment.getStartIndex() + "-" + fragment.getEndIndex());
+            } else {
+                expected.add(fragment.getStartIndex() + "-" + fragment.getEndIndex() + " "
+                        + ((FunctionFragment) fragment).getFunction());
+            }
+        }
+        var actual = new ArrayList<String>();
+        factory.visit(text, new FragmentVisitor() {
+
+            @Override
+            public void onText(CharSequence source, int startIndex, int endIndex) {
+                actual.add(startIndex + "-" + endIndex);
+            }
+
+            @Override
+            public void onFunction(Function function, CharSequence source, int startIndex, int endIndex,
+                    FunctionArguments arguments) {
+                actual.add(startIndex + "-" + endIndex + " " + function);
+            }
+        });
+        assertThat(actual).isEqualTo(expected);
+        var expectedText = fragments.stream().filter(f -> f.getType() == FragmentType.TEXT)
+                .map(Fragment::getText).collect(Collectors.joining());
+        assertThat(expectedText).startsWith("x\u001b]0;aaaaaaaaaaaaaaaaaaaa\u001b\\y");
+        var output = new StringBuilder();
+        factory.strip(text, output);
+        assertThat(output.toString()).isEqualTo(expectedText);
+    }
+
+    @Test
+    public void parse_allFunctionsInteresting_sameAsWithoutInterests() {
+        var functions = new ArrayList<Function>();
+        functions.addAll(List.of(C0ControlFunction.values()));
+        functions.addAll(List.of(C1ControlFunction.values()));
+        functions.addAll(List.of(ControlSequenceFunction.values()));
+        functions.addAll(List.of(IndependentControlFunction.values()));
+        var factory = new ParserFactory.Builder()
+                .environment(Environment._7_BIT)
+                .functionTypes(ControlFunctionType.values())
+                .interestedIn(functions.toArray(new Function[0]))
+                .build();
+        var text = "a\u001b[1;;3mb\u001b[2Jc\u001b]0;ti;tle\u001b\\\nd\u0007e\u001b[0m\u001bcf\u001b[5;5\u007e"
+                + "\u001bPq#0\u001b\\\u001b[;38;2;10;200;3000m\u001b]0;no end";
+        checkSameFragments(parseAll(factory.createParser(text)), parseAll(factory7Bit.createParser(text)));
+    }
+
+    @Test
+    public void parse_functionsOverLimits_functionsBecomeText() {
+        var factory = new ParserFactory.Builder()
+                .environment(Environment._7_BIT)
+                .functionTypes(ControlFunctionType.values())
+                .maxFunctionLength(10)
+                .maxArgumentCount(3)
+                .build();
+        var text = "a\u001b[1;2;3;4mb\u001b[1mc\u001b]0;long title\u001b\\d";
+        var parser = factory.createParser(text);
+        var fragment = parser.parse();
+        assertThat(fragment.getText()).isEqualTo("a\u001b[1;2;3;4mb");
+        fragment = parser.parse();
+        assertThat(fragment.getText()).isEqualTo("\u001b[1m");
+        assertThat(((FunctionFragment) fragment).getFunction()).isSameAs(ControlSequenceFunction.SGR);
+        fragment = parser.parse();
+        assertThat(fragment.getText()).isEqualTo("c\u001b]0;long title\u001b\\d");
+        assertThat(parser.parse()).isNull();
+
+        var actual = new ArrayList<String>();
+        factory.visit(text, new FragmentVisitor() {
+
+            @Override
+            public void onText(CharSequence source, int startIndex, int endIndex) {
+                actual.add(startIndex + "-" + endIndex);
+            }
+
+            @Override
+            public void onFunction(Function function, CharSequence source, int startIndex, int endIndex,
+                    FunctionArguments arguments) {
+                actual.add(startIndex + "-" + endIndex + " " + function);
+            }
+        });
+        assertThat(actual).containsExactly("0-12", "12-16 SGR", "16-34");
+
+        var longText = text.repeat(500);
+        var pool = new ForkJoinPool(4);
+        try {
+            for (var chunkSize : new int[] {1, 7, 100, 100000}) {
+                checkParallelResult(longText, factory, pool, chunkSize);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        var expected = factory.createParser(longText).stream().map(Fragment::getText).collect(Collectors.toList());
+        assertThat(factory.createParser(longText).stream().parallel().map(Fragment::getText)
+                .collect(Collectors.toList())).isEqualTo(expected);
+    }
+
+    @Test
+    public void parse_controlStringOverBufferSizeInStream_skippedToItsEnd() throws IOException {
+        var metrics = new CountingParserMetrics();
+        var factory = new ParserFactory.Builder()
+                .environment(Environment._7_BIT)
+                .functionTypes(ControlFunctionType.values())
+                .maxBufferSize(32)
+                .metrics(metrics)
+                .build();
+        var title = "x".repeat(1000);
+        //the content of the control string is not parsed
+        var text = "a\u001b]0;" + title + "\u001b[1m" + title + "\u001b\\\u001b[2mb";
+        var fragments = parseStream(factory, text, 16);
+        var functionFragments = fragments.stream().filter(f -> f.getType() == FragmentType.FUNCTION)
+                .collect(Collectors.toList());
+        assertThat(functionFragments).hasSize(1);
+        assertThat(((FunctionFragment) functionFragments.get(0)).getFunction()).isSameAs(ControlSequenceFunction.SGR);
+        assertThat(functionFragments.get(0).getStartIndex()).isEqualTo(text.length() - 5);
+        assertThat(fragments.stream().map(Fragment::getText).collect(Collectors.joining())).isEqualTo(text);
+        for (var fragment : fragments) {
+            assertThat(fragment.getText()).isEqualTo(text.substring(fragment.getStartIndex(), fragment.getEndIndex()));
+        }
+        assertThat(metrics.getMaxBufferedLength()).isLessThan(64);
+        //without the end the rest of the input is text
+        text = "a\u001b]0;" + title + "\u001b[1mb";
+        fragments = parseStream(factory, text, 16);
+        assertThat(fragments).allMatch(f -> f.getType() == FragmentType.TEXT);
+        assertThat(fragments.stream().map(Fragment::getText).collect(Collectors.joining())).isEqualTo(text);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 16, 100000})
+    public void parse_functionsOverMaxLength_sameResultInAllParsersAndStrip(int chunkSize, @TempDir Path dir)
+            throws IOException {
+        var factory = new ParserFactory.Builder()
+                .environment(Environment._7_BIT)
+                .functionTypes(ControlFunctionType.values())
+                .maxFunctionLength(12)
+                .failureListener(FailureListener.SILENT)
+                .build();
+        var text = "x\u001b]\u001b]8;;http://x\u0007y\u001b\\z\u001b[31mw\u001b[1;2;3;4;5;6;7;8;9;10mv"
+                + "\u001bP\u001b[1m\u001b[2m\u001b[3m\u001b\\u\u001b[0m";
+        var expected = parseAll(factory.createParser(text));
+        var expectedFunctions = expected.stream().filter(f -> f.getType() == FragmentType.FUNCTION)
+                .map(f -> f.getStartIndex() + "-" + f.getEndIndex() + " " + ((FunctionFragment) f).getFunction())
+                .collect(Collectors.toList());
+        assertThat(expectedFunctions).containsExactly("21-26 SGR", "68-72 SGR");
+        var expectedText = expected.stream().filter(f -> f.getType() == FragmentType.TEXT)
+                .map(Fragment::getText).collect(Collectors.joining());
+
+        var pushFragments = new ArrayList<Fragment>();
+        var pushParser = factory.createParser(pushFragments::add, StandardCharsets.UTF_8, 16);
+        var chars = text.toCharArray();
+        for (var i = 0; i < chars.length; i += chunkSize) {
+            pushParser.feed(chars, i, Math.min(chunkSize, chars.length - i));
+        }
+        pushParser.endOfInput();
+        var file = dir.resolve("log.txt");
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+        List<Fragment> fileFragments;
+        try (var fileParser = factory.createParser(file, StandardCharsets.UTF_8, chunkSize)) {
+            fileFragments = parseAll(fileParser);
+        }
+        for (var fragments : List.of(parseStream(factory, text, chunkSize), pushFragments, fileFragments)) {
+            assertThat(fragments.stream().filter(f -> f.getType() == FragmentType.FUNCTION)
+                    .map(f -> f.getStartPosition() + "-" + f.getEndPosition() + " "
+                            + ((FunctionFragment) f).getFunction())
+                    .collect(Collectors.toList())).isEqualTo(expectedFunctions);
+            assertThat(fragments.stream().filter(f -> f.getType() == FragmentType.TEXT)
+                    .map(Fragment::getText).collect(Collectors.joining())).isEqualTo(expectedText);
+        }
+
+        var output = new StringBuilder();
+        factory.strip(text, output);
+        assertThat(output.toString()).isEqualTo(expectedText);
+        var stream = new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)) {
+
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, chunkSize));
+            }
+
+            @Override
+            public synchronized int available() {
+                return 0;
+            }
+        };
+        var writer = new StringWriter();
+        factory.strip(stream, StandardCharsets.UTF_8, writer);
+        assertThat(writer.toString()).isEqualTo(expectedText);
+    }
+
+    @Test
+    public void parse_failureListener_failuresReportedAndCounted() throws IOException {
+        var failures = new ArrayList<String>();
+        var errors = new ArrayList<Exception>();
+        var listener = new FailureListener() {
+
+            @Override
+            public void onFunctionFailure(Function function, int index, FailureReason reason) {
+                failures.add(function + " " + index + " " + reason);
+            }
+
+            @Override
+            public void onParserError(Exception ex) {
+                errors.add(ex);
+            }
+        };
+        var factory = new ParserFactory.Builder()
+                .environment(Environment._7_BIT)
+                .functionTypes(ControlFunctionType.values())
+                .maxArgumentCount(3)
+                .failureListener(listener)
+                .build();
+        var text = "a\u001b[1;2;3;4mb\u001b]0;title";
+        var fragments = parseAll(factory.createParser(text));
+        assertThat(fragments.stream().map(Fragment::getText).collect(Collectors.joining())).isEqualTo(text);
+        assertThat(failures).containsExactly("SGR 1 LIMIT_EXCEEDED", "OSC 12 NO_END_OF_FUNCTION");
+        failures.clear();
+        factory.visit(text, new FragmentVisitor() {
+
+            @Override
+            public void onText(CharSequence source, int startIndex, int endIndex) {
+
+            }
+
+            @Override
+            public void onFunction(Function function, CharSequence source, int startIndex, int endIndex,
+                    FunctionArguments arguments) {
+
+            }
+        });
+        assertThat(failures).containsExactly("SGR 1 LIMIT_EXCEEDED", "OSC 12 NO_END_OF_FUNCTION");
+        assertThat(factory.getFailureCount(FunctionFailureReason.LIMIT_EXCEEDED)).isEqualTo(2);
+        assertThat(factory.getFailureCount(FunctionFailureReason.NO_END_OF_FUNCTION)).isEqualTo(2);
+        assertThat(factory.getFailureCount(FunctionFailureReason.UNKNOWN_FUNCTION)).isEqualTo(0);
+
+        var exception = new IOException("Broken stream");
+        var stream = new InputStream() {
+
+            @Override
+            public int read() throws IOException {
+                throw exception;
+            }
+        };
+        try (var parser = factory.createParser(stream, StandardCharsets.UTF_8, 16)) {
+            assertThat(parser.parse()).isNull();
+        }
+        assertThat(errors).containsExactly(exception);
+    }
+
+    @Test
+    public void parse_silentFailureListener_failuresOnlyCounted() {
+        var factory = new ParserFactory.Builder()
+                .environment(Environment._7_BIT)
+                .functionTypes(ControlFunctionType.values())
+                .failureListener(FailureListener.SILENT)
+                .build();
+        var text = "a\u001b]0;title".repeat(3);
+        var fragments = parseAll(factory.createParser(text));
+        assertThat(fragments.stream().map(Fragment::getText).collect(Collectors.joining())).isEqualTo(text);
+        assertThat(factory.getFailureCount(FunctionFailureReason.NO_END_OF_FUNCTION)).isEqualTo(3);
+    }
+
+    @Test
+    public void parse_countingMetrics_eventsCounted() throws IOException {
+        var metrics = new CountingParserMetrics();
+        var factory = new ParserFactory.Builder()
+                .environment(Environment._7_BIT)
+                .functionTypes(ControlFunctionType.values())
+                .failureListener(FailureListener.SILENT)
+                .metrics(metrics)
+                .build();
+        var text = "a\u001b[1mb\u001b[0m\nc\u001b]0;title";
+        var fragments = parseAll(factory.createParser(text));
+        assertThat(fragments).hasSize(6);
+        assertThat(metrics.getParsedCharCount()).isEqualTo(text.length());
+        assertThat(metrics.getTextCount()).isEqualTo(3);
+        assertThat(metrics.getFunctionCount()).isEqualTo(3);
+        assertThat(metrics.getFunctionCount(ControlSequenceFunction.SGR)).isEqualTo(2);
+        assertThat(metrics.getFunctionCounts()).isEqualTo(Map.of(ControlSequenceFunction.SGR, 2L,
+                C0ControlFunction.LF, 1L));
+        assertThat(metrics.getFailureCount()).isEqualTo(1);
+        assertThat(metrics.getDelayCount()).isEqualTo(0);
+        assertThat(metrics.getMaxBufferedLength()).isEqualTo(0);
+
+        var streamMetrics = new CountingParserMetrics();
+        var streamFactory = new ParserFactory.Builder()
+                .environment(Environment._7_BIT)
+                .functionTypes(ControlFunctionType.values())
+                .metrics(streamMetrics)
+                .build();
+        var streamText = "a\u001b]0;" + "x".repeat(20) + "\u001b\\b";
+        try (var parser = streamFactory.createParser(
+                new ByteArrayInputStream(streamText.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8, 4)) {
+            assertThat(parseAll(parser)).hasSize(3);
+        }
+        assertThat(streamMetrics.getParsedCharCount()).isEqualTo(streamText.length());
+        assertThat(streamMetrics.getFunctionCount(C1ControlFunction.OSC)).isEqualTo(1);
+        assertThat(streamMetrics.getDelayCount()).isGreaterThan(0);
+        assertThat(streamMetrics.getMaxBufferedLength()).isBetween(25L, (long) streamText.length());
+    }
+
+    @Test
+    public void parse_flightRecording_eventsRecorded(@TempDir Path dir) throws IOException {
+        var payload = "y".repeat(1000);
+        var text = "a\u001b[1mb\u001b]0;" + payload + "\u001b\\c";
+        List<RecordedEvent> events;
+        try (var recording = new Recording()) {
+            recording.enable("com.techsenger.ansi4j.ParseChunk").withThreshold(Duration.ZERO);
+            recording.enable("com.techsenger.ansi4j.LongFunction").withThreshold(Duration.ZERO);
+            recording.start();
+            factory7Bit.visit(text, new FragmentVisitor() {
+
+                @Override
+                public void onText(CharSequence source, int startIndex, int endIndex) {
+
+                }
+
+                @Override
+                public void onFunction(Function function, CharSequence source, int startIndex, int endIndex,
+                        FunctionArguments arguments) {
+
+                }
+            });
+            var parser = factory7Bit.createParser(f -> { }, StandardCharsets.UTF_8, 16,
+                    new TestControlStringConsumer(new ArrayList<>()));
+            var chars = text.toCharArray();
+            for (var i = 0; i < chars.length; i += 100) {
+                parser.feed(chars, i, Math.min(100, chars.length - i));
+            }
+            parser.endOfInput();
+            try (var streamParser = factory7Bit.createParser(
+                    new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8, 16)) {
+                assertThat(parseAll(streamParser)).hasSize(5);
+            }
+            recording.stop();
+            var file = dir.resolve("ansi4j.jfr");
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        }
+        var chunkEvents = events.stream().filter(e -> e.getEventType().getName().endsWith("ParseChunk"))
+                .collect(Collectors.toList());
+        var visitingEvent = chunkEvents.stream().filter(e -> e.getString("parser").equals("visiting")).findFirst();
+        assertThat(visitingEvent).isPresent();
+        assertThat(visitingEvent.get().getInt("chars")).isEqualTo(text.length());
+        assertThat(visitingEvent.get().getInt("textFragments")).isEqualTo(3);
+        assertThat(visitingEvent.get().getInt("functionFragments")).isEqualTo(2);
+        var pushEvents = chunkEvents.stream().filter(e -> e.getString("parser").equals("push"))
+                .collect(Collectors.toList());
+        assertThat(pushEvents.stream().mapToInt(e -> e.getInt("chars")).sum()).isEqualTo(text.length());
+
+        var functionEvents = events.stream().filter(e -> e.getEventType().getName().endsWith("LongFunction"))
+                .collect(Collectors.toList());
+        assertThat(functionEvents).allMatch(e -> e.getString("function").equals("OSC")
+                && !e.getBoolean("limitExceeded"));
+        var streamedEvents = functionEvents.stream().filter(e -> e.getBoolean("streamed"))
+                .collect(Collectors.toList());
+        assertThat(streamedEvents).hasSize(1);
+        assertThat(streamedEvents.get(0).getInt("length")).isEqualTo(payload.length() + 6);
+        assertThat(functionEvents).hasSize(2);
+        assertThat(functionEvents.stream().filter(e -> !e.getBoolean("streamed")).findFirst().get().getInt("length"))
+                .isGreaterThan(payload.length());
+    }
+
+    private String createManyFunctionsText() {
+        var builder = new StringBuilder();
+        for (var i = 0; i < 1000; i++) {
+            builder.append("line ").append(i).append(" \u001b[3").append(i % 8).append("mcolored\u001b[0m\n");
+        }
+        return builder.toString();
+    }
+
+    private void checkManyFunctionsText(String text, Parser parser) {
+        var parsedText = new StringBuilder();
+        var functionCount = 0;
+        Fragment fragment = null;
+        while ((fragment = parser.parse()) != null) {
+            assertThat(fragment.getStartIndex()).isEqualTo(parsedText.length());
+            assertThat(text.substring(fragment.getStartIndex(), fragment.getEndIndex())).isEqualTo(fragment.getText());
+            parsedText.append(fragment.getText());
+            if (fragment.getType() == FragmentType.FUNCTION) {
+                functionCount++;
+            }
+        }
+        assertThat(parsedText.toString()).isEqualTo(text);
+        assertThat(functionCount).isEqualTo(3000);
+    }
+
+    private ParserFactory createFailureFactory(List<String> failures, CountingParserMetrics metrics) {
+        return new ParserFactory.Builder()
+                .environment(Environment._7_BIT)
+                .functionTypes(ControlFunctionType.values())
+                .maxArgumentCount(3)
+                .failureListener(new FailureListener() {
+
+                    @Override
+                    public void onFunctionFailure(Function function, int index, FailureReason reason) {
+                        failures.add(function + " " + index + " " + reason);
+                    }
+
+                    @Override
+                    public void onParserError(Exception ex) {
+                        failures.add(ex.toString());
+                    }
+                })
+                .metrics(metrics)
+                .build();
+    }
+
+    private void checkParallelResult(String text, ParserFactory factory, ForkJoinPool pool, int chunkSize) {
+        var expected = parseAll(factory.createParser(text));
+        var actual = factory.parseParallel(text, pool, chunkSize);
+        checkSameFragments(actual, expected);
+    }
+
+    /**
+     * Returns the text of the text fragments of string parser.
+     */
+    private String getFragmentText(String text) {
+        return parseAll(factory7Bit.createParser(text)).stream().filter(f -> f.getType() == FragmentType.TEXT)
+                .map(Fragment::getText).collect(Collectors.joining());
+    }
+
+    private List<Fragment> parseStream(ParserFactory factory, String text, int bufferSize) throws IOException {
+        try (var parser = factory.createParser(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8, bufferSize)) {
+            return parseAll(parser);
+        }
+    }
+
+    private List<Fragment> parseAll(Parser parser) {
+        var fragments = new ArrayList<Fragment>();
+        Fragment fragment = null;
+        while ((fragment = parser.parse()) != null) {
+            fragments.add(fragment);
+        }
+        return fragments;
+    }
+
+    private void checkSameFragments(List<Fragment> actual, List<Fragment> expected) {
+        assertThat(actual).hasSameSizeAs(expected);
+        for (var i = 0; i < expected.size(); i++) {
+            var e = expected.get(i);
+            var a = actual.get(i);
+            assertThat(a.getType()).isSameAs(e.getType());
+            assertThat(a.getStartIndex()).isEqualTo(e.getStartIndex());
+            assertThat(a.getEndIndex()).isEqualTo(e.getEndIndex());
+            assertThat(a.getText()).isEqualTo(e.getText());
+            if (e.getType() == FragmentType.FUNCTION) {
+                var ef = (FunctionFragment) e;
+                var af = (FunctionFragment) a;
+                assertThat(af.getFunction()).isSameAs(ef.getFunction());
+                assertThat(af.getArguments()).hasSameSizeAs(ef.getArguments());
+                for (var j = 0; j < ef.getArguments().size(); j++) {
+                    assertThat(af.getArguments().get(j).getValue()).isEqualTo(ef.getArguments().get(j).getValue());
+                    assertThat(af.getArguments().get(j).isDefault()).isEqualTo(ef.getArguments().get(j).isDefault());
+                }
+            }
+        }
+    }
+
+    private void checkParallelStream(String text, ParserFactory factory) {
+        var expected = new ArrayList<Fragment>();
+        var parser = factory.createParser(text);
+        Fragment fragment = null;
+        while ((fragment = parser.parse()) != null) {
+            expected.add(fragment);
+        }
+        var actual = factory.createParser(text).stream().parallel().collect(Collectors.toList());
+        assertThat(actual).hasSameSizeAs(expected);
+        for (var i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i).getType()).isEqualTo(expected.get(i).getType());
+            assertThat(actual.get(i).getStartIndex()).isEqualTo(expected.get(i).getStartIndex());
+            assertThat(actual.get(i).getText()).isEqualTo(expected.get(i).getText());
+        }
+        assertThat(factory.createParser(text).stream().parallel()
+                .filter(f -> f.getType() == FragmentType.FUNCTION).count())
+                .isEqualTo(expected.stream().filter(f -> f.getType() == FragmentType.FUNCTION).count());
+    }
+
     private void checkMFunctionFragment(String text, FunctionFragment mFragment) {
         assertThat(mFragment.getType()).isSameAs(FragmentType.FUNCTION);
         var mFragmentText = Characters.ESC + "[33;1m";
@@ -19,6 +19,7 @@ module com.techsenger.ansi4j.core.it {
     requires com.techsenger.ansi4j.core.impl;
 
     requires org.slf4j;
+    requires jdk.jfr;
     requires org.junit.jupiter.api;
     requires org.junit.jupiter.params;
     requires org.assertj.core;
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.css.api;
+
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.concurrent.ThreadSafe;
+import com.techsenger.ansi4j.core.api.function.Function;
+
+/**
+ * Metrics that count the events of style processors. All counters are lock-free.
+ *
+ * @author Pavel Castornii
+ */
+@ThreadSafe
+public class CountingStyleProcessorMetrics implements StyleProcessorMetrics {
+
+    private final LongAdder processedCount = new LongAdder();
+
+    private final LongAdder evaluatedCount = new LongAdder();
+
+    private final LongAdder declarationCount = new LongAdder();
+
+    /**
+     * Creates metrics with all counters set to zero.
+     */
+    public CountingStyleProcessorMetrics() {
+        //empty
+    }
+
+    @Override
+    public void onFunctionProcessed(Function function, boolean evaluated, int declarationCount) {
+        this.processedCount.increment();
+        if (evaluated) {
+            this.evaluatedCount.increment();
+            this.declarationCount.add(declarationCount);
+        }
+    }
+
+    public long getProcessedCount() {
+        return this.processedCount.sum();
+    }
+
+    /**
+     * Returns the number of processed functions that the processor supports. The other functions are skipped.
+     *
+     * @return
+     */
+    public long getEvaluatedCount() {
+        return this.evaluatedCount.sum();
+    }
+
+    public long getDeclarationCount() {
+        return this.declarationCount.sum();
+    }
+}
@@ -59,6 +59,17 @@ public interface StyleProcessor {
             return this;
         }
 
+        /**
+         * Sets the metrics that receive the events of the processor. By default there are no metrics.
+         *
+         * @param metrics
+         * @return
+         */
+        public Builder metrics(StyleProcessorMetrics metrics) {
+            this.config.setMetrics(metrics);
+            return this;
+        }
+
         public StyleProcessor build() {
             this.config.validate();
             var processor = ServiceLoader
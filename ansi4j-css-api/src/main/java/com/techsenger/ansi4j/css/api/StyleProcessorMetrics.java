@@ -0,0 +1,39 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.css.api;
+
+import javax.annotation.concurrent.ThreadSafe;
+import com.techsenger.ansi4j.core.api.function.Function;
+
+/**
+ * Listener that receives the events of style processors for metrics. One instance can be shared by processors working
+ * in different threads, so it must be thread safe and cheap. See {@link CountingStyleProcessorMetrics}.
+ *
+ * @author Pavel Castornii
+ */
+@ThreadSafe
+public interface StyleProcessorMetrics {
+
+    /**
+     * Is called when the processor has processed a function fragment.
+     *
+     * @param function the function of the fragment.
+     * @param evaluated true if the processor supports this function, otherwise the function was skipped.
+     * @param declarationCount number of generated style declarations.
+     */
+    void onFunctionProcessed(Function function, boolean evaluated, int declarationCount);
+}
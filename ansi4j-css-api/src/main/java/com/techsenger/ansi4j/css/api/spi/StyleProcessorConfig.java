@@ -19,6 +19,7 @@ package com.techsenger.ansi4j.css.api.spi;
 import com.techsenger.ansi4j.css.api.attribute.AttributeGroupConfig;
 import java.util.List;
 import com.techsenger.ansi4j.css.api.GroupStyleGenerator;
+import com.techsenger.ansi4j.css.api.StyleProcessorMetrics;
 
 /**
  *
@@ -30,6 +31,8 @@ public class StyleProcessorConfig {
 
     private List<GroupStyleGenerator<?>> generators;
 
+    private StyleProcessorMetrics metrics;
+
     public List<AttributeGroupConfig<?>> getConfigs() {
         return configs;
     }
@@ -46,6 +49,14 @@ public class StyleProcessorConfig {
         this.generators = generators;
     }
 
+    public StyleProcessorMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(StyleProcessorMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     public void validate() {
         if (this.configs == null || this.configs.isEmpty()) {
             throw new IllegalStateException("No attribute group configs provided");
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.css.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event of processing a function fragment by the style processor.
+ *
+ * @author Pavel Castornii
+ */
+@Name("com.techsenger.ansi4j.StyleProcess")
+@Label("ANSI Style Process")
+@Category("Ansi4j")
+@Description("Evaluation of a function and generation of style declarations")
+@StackTrace(false)
+@Threshold("1 ms")
+final class StyleProcessEvent extends Event {
+
+    @Label("Function")
+    String function;
+
+    @Label("Arguments")
+    int argumentCount;
+
+    @Label("Attribute Changes")
+    int attributeChangeCount;
+
+    @Label("Declarations")
+    int declarationCount;
+}
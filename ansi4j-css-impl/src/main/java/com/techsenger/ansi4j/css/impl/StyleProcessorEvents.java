@@ -0,0 +1,97 @@
+/*
+ * Copyright 2022-2024 Pavel Castornii.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.techsenger.ansi4j.css.impl;
+
+import com.techsenger.ansi4j.core.api.function.Function;
+import jdk.jfr.EventType;
+
+/**
+ * Creates and commits flight recorder events of the style processor. Events extend jdk.jfr.Event, whose superclass
+ * javac can't find when it compiles with release 14, so the events and this class are compiled separately (see
+ * pom.xml) and the other classes of the module work with events only through this class. Events are created only
+ * when they are enabled and only if the optional jdk.jfr module is present.
+ *
+ * @author Pavel Castornii
+ */
+final class StyleProcessorEvents {
+
+    private static final boolean JFR_PRESENT = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    /**
+     * Works with the classes of jdk.jfr. It is loaded only when the module is present.
+     */
+    private static final class Recorder {
+
+        private static final EventType STYLE_PROCESS_TYPE = EventType.getEventType(StyleProcessEvent.class);
+
+        static Object beginStyleProcess() {
+            if (!STYLE_PROCESS_TYPE.isEnabled()) {
+                return null;
+            }
+            var event = new StyleProcessEvent();
+            event.begin();
+            return event;
+        }
+
+        static void commitStyleProcess(Object event, Function function, int argumentCount,
+                int attributeChangeCount, int declarationCount) {
+            var processEvent = (StyleProcessEvent) event;
+            processEvent.end();
+            if (processEvent.shouldCommit()) {
+                processEvent.function = String.valueOf(function);
+                processEvent.argumentCount = argumentCount;
+                processEvent.attributeChangeCount = attributeChangeCount;
+                processEvent.declarationCount = declarationCount;
+                processEvent.commit();
+            }
+        }
+
+        private Recorder() {
+            //empty
+        }
+    }
+
+    /**
+     * Begins {@link StyleProcessEvent}.
+     *
+     * @return event or null if the event is not enabled or jdk.jfr is absent.
+     */
+    static Object beginStyleProcess() {
+        if (!JFR_PRESENT) {
+            return null;
+        }
+        return Recorder.beginStyleProcess();
+    }
+
+    /**
+     * Ends {@link StyleProcessEvent} and commits it if it passes the settings of the recording.
+     *
+     * @param event not null event.
+     * @param function
+     * @param argumentCount
+     * @param attributeChangeCount
+     * @param declarationCount
+     */
+    static void commitStyleProcess(Object event, Function function, int argumentCount, int attributeChangeCount,
+            int declarationCount) {
+        Recorder.commitStyleProcess(event, function, argumentCount, attributeChangeCount, declarationCount);
+    }
+
+    private StyleProcessorEvents() {
+        //empty
+    }
+}
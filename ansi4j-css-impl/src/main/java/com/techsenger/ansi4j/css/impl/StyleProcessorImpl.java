@@ -25,6 +25,7 @@ import com.techsenger.ansi4j.css.api.attribute.AttributeGroup;
 import com.techsenger.ansi4j.css.api.spi.StyleProcessorConfig;
 import com.techsenger.ansi4j.css.impl.text.SgrFunctionEvaluator;
 import com.techsenger.ansi4j.css.api.StyleProcessor;
+import com.techsenger.ansi4j.css.api.StyleProcessorMetrics;
 import com.techsenger.ansi4j.css.api.attribute.AttributeRegistry;
 import com.techsenger.ansi4j.css.api.GroupStyleGenerator;
 import com.techsenger.ansi4j.css.api.ProcessorResult;
@@ -41,8 +42,14 @@ public final class StyleProcessorImpl implements StyleProcessor {
 
     private final AttributeRegistryImpl attributeRegistry;
 
+    /**
+     * Metrics or null.
+     */
+    private final StyleProcessorMetrics metrics;
+
     public StyleProcessorImpl(StyleProcessorConfig config) {
         this.attributeRegistry = new AttributeRegistryImpl(config.getConfigs());
+        this.metrics = config.getMetrics();
 
         var sgrEvaluator = new SgrFunctionEvaluator(this.attributeRegistry);
         this.evaluatorsByFunction.put(sgrEvaluator.getFunction(), sgrEvaluator);
@@ -66,6 +73,7 @@ public final class StyleProcessorImpl implements StyleProcessor {
 
     @Override
     public ProcessorResult process(FunctionFragment functionFragment) {
+        var event = StyleProcessorEvents.beginStyleProcess();
         var result = new ProcessorResultImpl();
         var function = functionFragment.getFunction();
         var evaluator = this.evaluatorsByFunction.get(function);
@@ -77,7 +85,14 @@ public final class StyleProcessorImpl implements StyleProcessor {
                 result.getStyleDeclarations().addAll(declarations);
             }
         }
+        if (this.metrics != null) {
+            this.metrics.onFunctionProcessed(function, evaluator != null, result.getStyleDeclarations().size());
+        }
         result.makeListsUnmodifiable();
+        if (event != null) {
+            StyleProcessorEvents.commitStyleProcess(event, function, functionFragment.getArgumentCount(),
+                    result.getAttributeChanges().size(), result.getStyleDeclarations().size());
+        }
         return result;
     }
 }
@@ -17,14 +17,9 @@
 package com.techsenger.ansi4j.css.impl.text;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Queue;
 import com.techsenger.ansi4j.core.api.FunctionFragment;
 import com.techsenger.ansi4j.core.api.function.Function;
-import com.techsenger.ansi4j.core.api.function.FunctionArgument;
 import com.techsenger.ansi4j.core.api.iso6429.ControlSequenceFunction;
 import com.techsenger.ansi4j.core.api.iso6429.SgrParameterValue;
 import com.techsenger.ansi4j.css.api.attribute.Attribute;
@@ -65,8 +60,16 @@ public class SgrFunctionEvaluator implements FunctionEvaluator {
             this.parameters = parameters;
         }
 
-        abstract void evaluate(FunctionArgument argument, Queue<FunctionArgument> argumentQueue,
-                ProcessorResultImpl result);
+        /**
+         * Evaluates the argument. Some parameters use the arguments that follow them.
+         *
+         * @param argumentValue the value of the argument.
+         * @param fragment the fragment that contains the argument.
+         * @param nextIndex the index of the argument after the evaluated one.
+         * @param result
+         * @return the index of the next argument to evaluate.
+         */
+        abstract int evaluate(int argumentValue, FunctionFragment fragment, int nextIndex, ProcessorResultImpl result);
 
         public Attribute<T> getAttribute() {
             return attribute;
@@ -95,9 +98,9 @@ public class SgrFunctionEvaluator implements FunctionEvaluator {
         }
 
         @Override
-        void evaluate(FunctionArgument argument, Queue<FunctionArgument> argumentQueue, ProcessorResultImpl result) {
+        int evaluate(int argumentValue, FunctionFragment fragment, int nextIndex, ProcessorResultImpl result) {
             Intensity value;
-            switch ((Integer) argument.getValue()) {
+            switch (argumentValue) {
                 case SgrParameterValue.BOLD_OR_INCREASED_INTENSITY:
                     value = Intensity.INCREASED;
                     break;
@@ -111,6 +114,7 @@ public class SgrFunctionEvaluator implements FunctionEvaluator {
                     throw new AssertionError();
             }
             doChange(value, result);
+            return nextIndex;
         }
     }
 
@@ -125,9 +129,9 @@ public class SgrFunctionEvaluator implements FunctionEvaluator {
         }
 
         @Override
-        void evaluate(FunctionArgument argument, Queue<FunctionArgument> argumentQueue, ProcessorResultImpl result) {
+        int evaluate(int argumentValue, FunctionFragment fragment, int nextIndex, ProcessorResultImpl result) {
             Underline value;
-            switch ((Integer) argument.getValue()) {
+            switch (argumentValue) {
                 case SgrParameterValue.SINGLY_UNDERLINED:
                     value = Underline.SINGLE;
                     break;
@@ -141,6 +145,7 @@ public class SgrFunctionEvaluator implements FunctionEvaluator {
                     throw new AssertionError();
             }
             doChange(value, result);
+            return nextIndex;
         }
     }
 
@@ -155,9 +160,9 @@ public class SgrFunctionEvaluator implements FunctionEvaluator {
         }
 
         @Override
-        void evaluate(FunctionArgument argument, Queue<FunctionArgument> argumentQueue, ProcessorResultImpl result) {
+        int evaluate(int argumentValue, FunctionFragment fragment, int nextIndex, ProcessorResultImpl result) {
             Blinking value;
-            switch ((Integer) argument.getValue()) {
+            switch (argumentValue) {
                 case SgrParameterValue.SLOWLY_BLINKING:
                     value = Blinking.SLOW;
                     break;
@@ -171,6 +176,7 @@ public class SgrFunctionEvaluator implements FunctionEvaluator {
                     throw new AssertionError();
             }
             doChange(value, result);
+            return nextIndex;
         }
     }
 
@@ -184,9 +190,9 @@ public class SgrFunctionEvaluator implements FunctionEvaluator {
         }
 
         @Override
-        void evaluate(FunctionArgument argument, Queue<FunctionArgument> argumentQueue, ProcessorResultImpl result) {
+        int evaluate(int argumentValue, FunctionFragment fragment, int nextIndex, ProcessorResultImpl result) {
             Boolean value;
-            switch ((Integer) argument.getValue()) {
+            switch (argumentValue) {
                 case SgrParameterValue.CONCEALED_CHARACTERS:
                     value = false;
                     break;
@@ -197,24 +203,26 @@ public class SgrFunctionEvaluator implements FunctionEvaluator {
                     throw new AssertionError();
             }
             doChange(value, result);
+            return nextIndex;
         }
     }
 
     private static final class BooleanEvaluator extends AbstractEvaluator<Boolean> {
 
-        BooleanEvaluator(Attribute<Boolean> attribute, Integer onParam, Integer offParam) {
+        BooleanEvaluator(Attribute<Boolean> attribute, int onParam, int offParam) {
             super(attribute, List.of(onParam, offParam));
         }
 
         @Override
-        void evaluate(FunctionArgument argument, Queue<FunctionArgument> argumentQueue, ProcessorResultImpl result) {
+        int evaluate(int argumentValue, FunctionFragment fragment, int nextIndex, ProcessorResultImpl result) {
             Boolean value;
-            if ((Integer) argument.getValue() == getParameters().get(0)) {
+            if (argumentValue == getParameters().get(0)) {
                 value = true;
             } else {
                 value = false;
             }
             doChange(value, result);
+            return nextIndex;
         }
     }
 
@@ -225,13 +233,12 @@ public class SgrFunctionEvaluator implements FunctionEvaluator {
         }
 
         @Override
-        void evaluate(FunctionArgument argument, Queue<FunctionArgument> argumentQueue, ProcessorResultImpl result) {
-            var argumentValue = (int) argument.getValue();
+        int evaluate(int argumentValue, FunctionFragment fragment, int nextIndex, ProcessorResultImpl result) {
             var attribute = getAttribute();
             var config = attributeGroup.getConfig();
             //now we find new value
             Integer newColor = null;
-            Integer attributeValue = resolveAttributeValue(argumentValue);
+            int attributeValue = resolveAttributeValue(argumentValue);
             if (!config.areExtraColorsEnabled()) {
                 var colorIndex = attributeValue;
                 newColor = config.getPalette8().getColors()[colorIndex];
@@ -239,18 +246,27 @@ public class SgrFunctionEvaluator implements FunctionEvaluator {
                 if (argumentValue == SgrExtraColorValue.DISPLAY_8_OR_24_BIT_PALETTE
                         || argumentValue == SgrExtraColorValue.BACKGROUND_8_OR_24_BIT_PALETTE) {
                     //now we need second argument.
-                    var nextArgument = argumentQueue.peek();
-                    int nextArgumentValue = (int) nextArgument.getValue();
+                    if (!isIntArgument(fragment, nextIndex)) {
+                        return nextIndex;
+                    }
+                    int nextArgumentValue = fragment.getIntArgument(nextIndex);
                     if (nextArgumentValue == SgrExtraColorValue.PALETTE_8_BIT) {
-                        argumentQueue.poll(); //now remove
-                        int colorIndex = (int) argumentQueue.poll().getValue();
+                        if (!isIntArgument(fragment, nextIndex + 1)) {
+                            return fragment.getArgumentCount();
+                        }
+                        int colorIndex = fragment.getIntArgument(nextIndex + 1);
                         newColor = config.getPalette256().getColors()[colorIndex];
+                        nextIndex += 2;
                     } else if (nextArgumentValue == SgrExtraColorValue.PALETTE_24_BIT) {
-                        argumentQueue.poll(); //now remove
-                        int red = (int) argumentQueue.poll().getValue();
-                        int green = (int) argumentQueue.poll().getValue();
-                        int blue = (int) argumentQueue.poll().getValue();
+                        if (!isIntArgument(fragment, nextIndex + 1) || !isIntArgument(fragment, nextIndex + 2)
+                                || !isIntArgument(fragment, nextIndex + 3)) {
+                            return fragment.getArgumentCount();
+                        }
+                        int red = fragment.getIntArgument(nextIndex + 1);
+                        int green = fragment.getIntArgument(nextIndex + 2);
+                        int blue = fragment.getIntArgument(nextIndex + 3);
                         newColor = (red << 16) | (green << 8) | blue;
+                        nextIndex += 4;
                     }
                 } else {
                     var colorIndex = attributeValue;
@@ -262,9 +278,10 @@ public class SgrFunctionEvaluator implements FunctionEvaluator {
                 var change = new AttributeChange<Integer>(attribute, attribute.getValue(), newColor);
                 result.getAttributeChanges().add(change);
             }
+            return nextIndex;
         }
 
-        protected abstract Integer resolveAttributeValue(Integer argumentValue);
+        protected abstract int resolveAttributeValue(int argumentValue);
 
     };
 
@@ -297,7 +314,7 @@ public class SgrFunctionEvaluator implements FunctionEvaluator {
         }
 
         @Override
-        protected Integer resolveAttributeValue(Integer argumentValue) {
+        protected int resolveAttributeValue(int argumentValue) {
             if (argumentValue == SgrExtraColorValue.DISPLAY_8_OR_24_BIT_PALETTE) {
                 return -1;
             } else if (argumentValue <= 37) {
@@ -338,7 +355,7 @@ public class SgrFunctionEvaluator implements FunctionEvaluator {
         }
 
         @Override
-        protected Integer resolveAttributeValue(Integer argumentValue) {
+        protected int resolveAttributeValue(int argumentValue) {
             if (argumentValue == SgrExtraColorValue.DISPLAY_8_OR_24_BIT_PALETTE) {
                 return -1;
             } else if (argumentValue <= 47) {
@@ -356,8 +373,9 @@ public class SgrFunctionEvaluator implements FunctionEvaluator {
         }
 
         @Override
-        void evaluate(FunctionArgument argument, Queue<FunctionArgument> argumentQueue, ProcessorResultImpl result) {
+        int evaluate(int argumentValue, FunctionFragment fragment, int nextIndex, ProcessorResultImpl result) {
             doChange(getAttribute().getDefaultValue(), result);
+            return nextIndex;
         }
     };
 
@@ -379,9 +397,9 @@ public class SgrFunctionEvaluator implements FunctionEvaluator {
         }
 
         @Override
-        void evaluate(FunctionArgument argument, Queue<FunctionArgument> argumentQueue, ProcessorResultImpl result) {
-            var argumentValue = (Integer) argument.getValue();
+        int evaluate(int argumentValue, FunctionFragment fragment, int nextIndex, ProcessorResultImpl result) {
             doChange(getFont(argumentValue - 10), result);
+            return nextIndex;
         }
 
         private String getFont(int index) {
@@ -403,20 +421,22 @@ public class SgrFunctionEvaluator implements FunctionEvaluator {
         }
 
         @Override
-        void evaluate(FunctionArgument argument, Queue<FunctionArgument> argumentQueue, ProcessorResultImpl result) {
+        int evaluate(int argumentValue, FunctionFragment fragment, int nextIndex, ProcessorResultImpl result) {
             for (var attribute : attributeGroup.getAttributes()) {
                 if (!attribute.isValueDefault()) {
                     var change = new AttributeChange(attribute, attribute.getValue(), attribute.getDefaultValue());
                     result.getAttributeChanges().add(change);
                 }
             }
+            return nextIndex;
         }
     }
 
     /**
-     * Descriptors by parameter values. This map hold data for converting SGR values Attribute values.
+     * Evaluators by parameter values, index is the parameter value. This array holds data for converting SGR values
+     * to Attribute values.
      */
-    private final Map<Integer, AbstractEvaluator<?>> evaluatorsByParameter = new HashMap<>();
+    private final AbstractEvaluator<?>[] evaluatorsByParameter;
 
     private final TextAttributeGroupImpl attributeGroup;
 
@@ -445,35 +465,48 @@ public class SgrFunctionEvaluator implements FunctionEvaluator {
         evaluators.add(new FontEvaluator());
         evaluators.add(new ResetEvaluator());
 
+        var params = new TreeSet<Integer>();
+        evaluators.forEach(e -> params.addAll(e.getParameters()));
+        this.evaluatorsByParameter = new AbstractEvaluator<?>[params.last() + 1];
         for (var eval : evaluators) {
-            eval.getParameters().forEach(p -> evaluatorsByParameter.put(p, eval));
-        }
-        if (logger.isDebugEnabled()) {
-            var params = new TreeSet<Integer>(evaluatorsByParameter.keySet());
-            logger.debug("Initialized SGR evaluator for params: {}", params);
+            eval.getParameters().forEach(p -> this.evaluatorsByParameter[p] = eval);
         }
+        logger.debug("Initialized SGR evaluator for params: {}", params);
     }
 
     @Override
     public void evaluate(FunctionFragment functionFragment, ProcessorResult result) {
-        //we need fifo queue, because every attribute processing function can retrieve additional arguments.
-        Queue<FunctionArgument> argumentQueue = new LinkedList<>(functionFragment.getArguments());
+        //every attribute processing function can use additional arguments, so it returns the next index
         var r = (ProcessorResultImpl) result;
-        while (!argumentQueue.isEmpty()) {
-            var argument = argumentQueue.poll();
-            int argumentValue = (int) argument.getValue();
-            var evaluator = this.evaluatorsByParameter.get(argumentValue);
-            if (evaluator != null) {
-                evaluator.evaluate(argument, argumentQueue, r);
+        var count = functionFragment.getArgumentCount();
+        var index = 0;
+        while (index < count) {
+            if (!functionFragment.isIntArgument(index)) {
+                index++;
+                continue;
+            }
+            int argumentValue = functionFragment.getIntArgument(index);
+            index++;
+            if (argumentValue < this.evaluatorsByParameter.length) {
+                var evaluator = this.evaluatorsByParameter[argumentValue];
+                if (evaluator != null) {
+                    index = evaluator.evaluate(argumentValue, functionFragment, index, r);
+                }
             }
         }
-
     }
 
     @Override
     public Function getFunction() {
         return ControlSequenceFunction.SGR;
     }
+
+    /**
+     * Checks if the fragment has an integer argument with the given index.
+     */
+    private static boolean isIntArgument(FunctionFragment fragment, int index) {
+        return index < fragment.getArgumentCount() && fragment.isIntArgument(index);
+    }
 }
 
 
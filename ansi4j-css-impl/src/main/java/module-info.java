@@ -18,6 +18,7 @@ module com.techsenger.ansi4j.css.impl {
     requires com.techsenger.ansi4j.core.api;
     requires com.techsenger.ansi4j.css.api;
     requires org.slf4j;
+    requires static jdk.jfr;
 
     exports com.techsenger.ansi4j.css.impl.attribute to com.techsenger.ansi4j.css.demo;
 
@@ -16,7 +16,13 @@
 
 package com.techsenger.ansi4j.css.it;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import com.techsenger.ansi4j.core.api.ParserFactory;
 import com.techsenger.ansi4j.core.api.Environment;
 import com.techsenger.ansi4j.core.api.Fragment;
@@ -29,9 +35,12 @@ import com.techsenger.ansi4j.css.api.color.XtermPalette256;
 import com.techsenger.ansi4j.css.api.text.TextAttributeGroupConfig;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.techsenger.ansi4j.css.api.ProcessorResult;
 import com.techsenger.ansi4j.css.api.StyleProcessor;
+import com.techsenger.ansi4j.css.api.CountingStyleProcessorMetrics;
 import com.techsenger.ansi4j.css.api.attribute.AttributeChange;
 import com.techsenger.ansi4j.css.api.color.Palette256;
 import com.techsenger.ansi4j.css.api.text.WebViewStyleGenerator;
@@ -96,6 +105,66 @@ public class StyleProcessorIT {
             }
         }
     }
-}
 
+    @Test
+    public void process_countingMetrics_functionsCounted() {
+        var text = "a\u001b[1mb\u001b[2Jc\u001b[3;4m";
+        var parser = factory.createParser(text);
+        Palette256 palette256 = new XtermPalette256();
+        TextAttributeGroupConfig groupConfig = new TextAttributeGroupConfig.Builder()
+                .fontFamilies(List.of("Arial"))
+                .extraColorsEnabled(true)
+                .palette16(palette256)
+                .palette256(palette256)
+                .build();
+        var metrics = new CountingStyleProcessorMetrics();
+        var processor = new StyleProcessor.Builder()
+                .configs(groupConfig)
+                .generators(new WebViewStyleGenerator())
+                .metrics(metrics)
+                .build();
+        var declarationCount = 0;
+        Fragment fragment = null;
+        while ((fragment = parser.parse()) != null) {
+            if (fragment.getType() == FragmentType.FUNCTION) {
+                declarationCount += processor.process((FunctionFragment) fragment).getStyleDeclarations().size();
+            }
+        }
+        assertThat(metrics.getProcessedCount()).isEqualTo(3);
+        assertThat(metrics.getEvaluatedCount()).isEqualTo(2);
+        assertThat(metrics.getDeclarationCount()).isEqualTo(declarationCount).isGreaterThan(0);
+    }
 
+    @Test
+    public void process_flightRecording_eventRecorded(@TempDir Path dir) throws IOException {
+        var parser = factory.createParser("\u001b[1;3mtext");
+        Palette256 palette256 = new XtermPalette256();
+        TextAttributeGroupConfig groupConfig = new TextAttributeGroupConfig.Builder()
+                .fontFamilies(List.of("Arial"))
+                .extraColorsEnabled(true)
+                .palette16(palette256)
+                .palette256(palette256)
+                .build();
+        var processor = new StyleProcessor.Builder()
+                .configs(groupConfig)
+                .generators(new WebViewStyleGenerator())
+                .build();
+        ProcessorResult result;
+        List<RecordedEvent> events;
+        try (var recording = new Recording()) {
+            recording.enable("com.techsenger.ansi4j.StyleProcess").withThreshold(Duration.ZERO);
+            recording.start();
+            result = processor.process((FunctionFragment) parser.parse());
+            recording.stop();
+            var file = dir.resolve("ansi4j.jfr");
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        }
+        assertThat(events).hasSize(1);
+        var event = events.get(0);
+        assertThat(event.getString("function")).isEqualTo("SGR");
+        assertThat(event.getInt("argumentCount")).isEqualTo(2);
+        assertThat(event.getInt("attributeChangeCount")).isEqualTo(result.getAttributeChanges().size());
+        assertThat(event.getInt("declarationCount")).isEqualTo(result.getStyleDeclarations().size());
+    }
+}
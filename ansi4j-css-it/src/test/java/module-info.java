@@ -20,6 +20,7 @@ module com.techsenger.ansi4j.css.it {
     requires com.techsenger.ansi4j.css.api;
     requires com.techsenger.ansi4j.css.impl;
     requires org.slf4j;
+    requires jdk.jfr;
 
     requires org.junit.jupiter.api;
     requires org.junit.jupiter.params;